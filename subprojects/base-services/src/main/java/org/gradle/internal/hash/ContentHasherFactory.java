@@ -19,4 +19,9 @@ package org.gradle.internal.hash;
 import org.gradle.internal.Factory;
 
 public interface ContentHasherFactory extends Factory<Hasher> {
+    /**
+     * Returns the suffix to add to the name of a persistent cache that holds hashes created by this factory, so that hashes created by different hash functions
+     * are never mixed. This is empty for the default hash function.
+     */
+    String getCacheNameSuffix();
 }
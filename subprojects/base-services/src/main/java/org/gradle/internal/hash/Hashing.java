@@ -42,6 +42,16 @@ public class Hashing {
         return SHA1;
     }
 
+    /**
+     * The 128-bit x64 variant of MurmurHash3 with a seed of 0, which produces the same hashes as Guava's {@code murmur3_128()}.
+     * It is not a cryptographic hash function, but it is considerably faster than MD5 on large inputs.
+     */
+    public static HashFunction murmur3_128() {
+        return MURMUR3_128;
+    }
+
+    private static final HashFunction MURMUR3_128 = new Murmur3HashFunction();
+
     private static abstract class MessageDigestHashFunction implements HashFunction {
         public static MessageDigestHashFunction of(String algorithm) {
             MessageDigest prototype;
@@ -148,6 +158,12 @@ public class Hashing {
             digest.update(bytes, off, len);
         }
 
+        @Override
+        public void putBytes(ByteBuffer bytes) {
+            checkNotDone();
+            digest.update(bytes);
+        }
+
         @Override
         public HashCode hash() {
             done = true;
@@ -195,4 +211,219 @@ public class Hashing {
             putBytes(hashCode.getBytes());
         }
     }
+
+    private static class Murmur3HashFunction implements HashFunction {
+        @Override
+        public Hasher newHasher() {
+            return new Murmur3Hasher();
+        }
+
+        @Override
+        public HashCode hashBytes(byte[] bytes) {
+            Hasher hasher = newHasher();
+            hasher.putBytes(bytes);
+            return hasher.hash();
+        }
+
+        @Override
+        public HashCode hashString(CharSequence string) {
+            Hasher hasher = newHasher();
+            hasher.putString(string);
+            return hasher.hash();
+        }
+    }
+
+    private static class Murmur3Hasher implements Hasher {
+        private static final int BLOCK_SIZE = 16;
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        private int blockLength;
+        private long h1;
+        private long h2;
+        private long length;
+        private boolean done;
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher");
+            }
+        }
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            block[blockLength++] = b;
+            if (blockLength == BLOCK_SIZE) {
+                processBlock(block, 0);
+                blockLength = 0;
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            int end = off + len;
+            if (blockLength > 0) {
+                int count = Math.min(BLOCK_SIZE - blockLength, len);
+                System.arraycopy(bytes, off, block, blockLength, count);
+                blockLength += count;
+                off += count;
+                if (blockLength < BLOCK_SIZE) {
+                    return;
+                }
+                processBlock(block, 0);
+                blockLength = 0;
+            }
+            while (end - off >= BLOCK_SIZE) {
+                processBlock(bytes, off);
+                off += BLOCK_SIZE;
+            }
+            blockLength = end - off;
+            System.arraycopy(bytes, off, block, 0, blockLength);
+        }
+
+        @Override
+        public void putBytes(ByteBuffer bytes) {
+            checkNotDone();
+            int count = bytes.remaining();
+            ByteBuffer littleEndian = bytes.slice().order(ByteOrder.LITTLE_ENDIAN);
+            while (blockLength > 0 && littleEndian.hasRemaining()) {
+                putByte(littleEndian.get());
+            }
+            while (littleEndian.remaining() >= BLOCK_SIZE) {
+                processBlock(littleEndian.getLong(), littleEndian.getLong());
+            }
+            while (littleEndian.hasRemaining()) {
+                putByte(littleEndian.get());
+            }
+            bytes.position(bytes.position() + count);
+        }
+
+        private void processBlock(byte[] bytes, int off) {
+            processBlock(getLongLittleEndian(bytes, off), getLongLittleEndian(bytes, off + 8));
+        }
+
+        private void processBlock(long k1, long k2) {
+            length += BLOCK_SIZE;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = blockLength - 1; i >= 8; i--) {
+                k2 = (k2 << 8) | (block[i] & 0xffL);
+            }
+            for (int i = Math.min(blockLength, 8) - 1; i >= 0; i--) {
+                k1 = (k1 << 8) | (block[i] & 0xffL);
+            }
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+            length += blockLength;
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+
+            byte[] bytes = new byte[16];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putLong(h1).putLong(h2);
+            return HashCode.fromBytesNoCopy(bytes);
+        }
+
+        private static long getLongLittleEndian(byte[] bytes, int off) {
+            return (bytes[off] & 0xffL)
+                | (bytes[off + 1] & 0xffL) << 8
+                | (bytes[off + 2] & 0xffL) << 16
+                | (bytes[off + 3] & 0xffL) << 24
+                | (bytes[off + 4] & 0xffL) << 32
+                | (bytes[off + 5] & 0xffL) << 40
+                | (bytes[off + 6] & 0xffL) << 48
+                | (bytes[off + 7] & 0xffL) << 56;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private void putBuffer(int length) {
+            putBytes(buffer.array(), 0, length);
+            buffer.clear();
+        }
+
+        @Override
+        public void putInt(int value) {
+            buffer.putInt(value);
+            putBuffer(4);
+        }
+
+        @Override
+        public void putLong(long value) {
+            buffer.putLong(value);
+            putBuffer(8);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            putBytes(hashCode.getBytes());
+        }
+    }
 }
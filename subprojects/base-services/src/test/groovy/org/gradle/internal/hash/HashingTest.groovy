@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+class HashingTest extends Specification {
+    @Unroll
+    def "murmur3 produces the same hash as Guava for #length bytes"() {
+        def random = new Random(length)
+        def bytes = new byte[length]
+        random.nextBytes(bytes)
+
+        when:
+        def hasher = Hashing.murmur3_128().newHasher()
+        def off = 0
+        while (off < length) {
+            def count = Math.min(length - off, random.nextInt(20))
+            if (count == 1) {
+                hasher.putByte(bytes[off])
+            } else {
+                hasher.putBytes(bytes, off, count)
+            }
+            off += count
+        }
+
+        then:
+        hasher.hash().toString() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).toString()
+        Hashing.murmur3_128().hashBytes(bytes).toString() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).toString()
+
+        where:
+        length << [0, 1, 7, 8, 15, 16, 17, 31, 32, 100, 8193]
+    }
+
+    def "murmur3 hashes primitives as little endian bytes"() {
+        def hasher = Hashing.murmur3_128().newHasher()
+        hasher.putInt(1)
+        hasher.putLong(2L)
+        hasher.putBoolean(true)
+        hasher.putString("abc")
+
+        expect:
+        hasher.hash().toString() == com.google.common.hash.Hashing.murmur3_128().newHasher()
+            .putInt(1).putLong(2L).putBoolean(true).putBytes("abc".getBytes("UTF-8")).hash().toString()
+    }
+
+    @Unroll
+    def "#function hashes byte buffers like byte arrays"() {
+        def bytes = new byte[100]
+        new Random(1).nextBytes(bytes)
+        def direct = ByteBuffer.allocateDirect(bytes.length - 3)
+        direct.put(bytes, 3, bytes.length - 3).flip()
+
+        when:
+        def hasher = function.newHasher()
+        hasher.putBytes(bytes, 0, 3)
+        hasher.putBytes(direct)
+
+        then:
+        !direct.hasRemaining()
+        hasher.hash() == function.hashBytes(bytes)
+
+        where:
+        function << [Hashing.md5(), Hashing.murmur3_128()]
+    }
+}
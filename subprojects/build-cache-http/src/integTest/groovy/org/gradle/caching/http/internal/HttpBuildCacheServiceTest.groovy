@@ -25,7 +25,9 @@ import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.http.HttpBuildCache
+import org.gradle.internal.resource.transport.http.DefaultHttpSettings
 import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
+import org.gradle.internal.resource.transport.http.HttpClientHelper
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.test.fixtures.server.http.AuthScheme
 import org.gradle.test.fixtures.server.http.HttpResourceInteraction
@@ -36,6 +38,8 @@ import spock.lang.Specification
 
 import javax.servlet.http.HttpServletRequest
 import javax.servlet.http.HttpServletResponse
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
 
 class HttpBuildCacheServiceTest extends Specification {
     public static final List<Integer> FATAL_HTTP_ERROR_CODES = [
@@ -293,6 +297,112 @@ class HttpBuildCacheServiceTest extends Specification {
         server.authenticationAttempts == ['Basic'] as Set
     }
 
+    def "loads entries that are requested concurrently with a single batch request"() {
+        def batchingCache = batchingCache()
+        def keys = ['0a', '0b', '0c', '0d'].collect { cacheKey(it) }
+        def received = new ConcurrentHashMap<String, String>()
+        def found = new ConcurrentHashMap<String, Boolean>()
+        def firstBatchReceived = new CountDownLatch(1)
+        server.expect("/cache/", ["POST"], new HttpServer.ActionSupport("first batch") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                assert request.inputStream.text.readLines() == ['0a']
+                firstBatchReceived.countDown()
+                // Hold the first batch until the other entries have been requested
+                while (batchingCache.pendingLoadCount < 3) {
+                    Thread.sleep(10)
+                }
+                writeBatch(response, ['0a': 'A'])
+            }
+        })
+        server.expect("/cache/", ["POST"], new HttpServer.ActionSupport("second batch") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                assert request.getHeader(HttpHeaders.ACCEPT) == HttpBuildCacheService.BUILD_CACHE_BATCH_CONTENT_TYPE
+                assert request.inputStream.text.readLines() as Set == ['0b', '0c', '0d'] as Set
+                writeBatch(response, ['0b': 'B', '0d': 'D'])
+            }
+        })
+
+        when:
+        def load = { BuildCacheKey key ->
+            def thread = new Thread({
+                found[key.hashCode] = batchingCache.load(key) { input -> received[key.hashCode] = input.text }
+            })
+            thread.start()
+            thread
+        }
+        def threads = [load(keys[0])]
+        firstBatchReceived.await()
+        threads.addAll(keys.drop(1).collect(load))
+        threads*.join()
+
+        then:
+        found == ['0a': true, '0b': true, '0c': false, '0d': true]
+        received == ['0a': 'A', '0b': 'B', '0d': 'D']
+    }
+
+    def "loads entries separately when the server does not support batch loads"() {
+        def batchingCache = batchingCache()
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expect("/cache/", false, ["POST"], new HttpServer.ActionSupport("return 405 not allowed") {
+            @Override
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                response.sendError(HttpStatus.SC_METHOD_NOT_ALLOWED, "not allowed")
+            }
+        })
+        server.expectGet("/cache/${key.hashCode}", srcFile)
+
+        when:
+        def receivedInput = null
+        def fromCache = batchingCache.load(key) { input ->
+            receivedInput = input.text
+        }
+
+        then:
+        fromCache
+        receivedInput == "Data"
+
+        when:
+        server.expectGetMissing("/cache/0e")
+        fromCache = batchingCache.load(cacheKey("0e")) { input ->
+            throw new RuntimeException("That should never be called")
+        }
+
+        then:
+        !fromCache
+    }
+
+    private HttpBuildCacheService batchingCache() {
+        def httpClientHelper = new HttpClientHelper(DefaultHttpSettings.builder()
+            .withAuthenticationSettings([])
+            .withSslContextFactory(new DefaultSslContextFactory())
+            .followRedirects(false)
+            .build())
+        return new HttpBuildCacheService(httpClientHelper, server.uri.resolve("/cache/"), true)
+    }
+
+    private static void writeBatch(HttpServletResponse response, Map<String, String> entries) {
+        response.setStatus(200)
+        response.setContentType(HttpBuildCacheService.BUILD_CACHE_BATCH_CONTENT_TYPE)
+        entries.each { hash, content ->
+            response.outputStream << "${hash} ${content.bytes.length}\n".bytes << content.bytes
+        }
+    }
+
+    private static BuildCacheKey cacheKey(String hash) {
+        return new BuildCacheKey() {
+            @Override
+            String getHashCode() {
+                return hash
+            }
+
+            @Override
+            String getDisplayName() {
+                return hash
+            }
+        }
+    }
+
     private HttpResourceInteraction expectError(int httpCode, String method) {
         server.expect("/cache/${key.hashCode}", false, [method], new HttpServer.ActionSupport("return ${httpCode} broken") {
             @Override
@@ -33,12 +33,28 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Build cache factory for HTTP backend.
  */
 public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFactory<HttpBuildCache> {
 
+    /**
+     * The system property to set the maximum number of connections to the HTTP build cache.
+     */
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.unsafe.build-cache.http.max-connections";
+
+    /**
+     * The system property to set how many seconds idle connections to the HTTP build cache are kept open, when the server does not specify it.
+     */
+    public static final String KEEP_ALIVE_PROPERTY = "org.gradle.unsafe.build-cache.http.keep-alive";
+
+    /**
+     * The system property to enable loading entries that are requested concurrently with a single batch request.
+     */
+    public static final String BATCH_LOAD_PROPERTY = "org.gradle.unsafe.build-cache.http.batch-load";
+
     private final SslContextFactory sslContextFactory;
 
     @Inject
@@ -70,7 +86,9 @@ public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFac
         boolean allowUntrustedServer = configuration.isAllowUntrustedServer();
         DefaultHttpSettings.Builder builder = DefaultHttpSettings.builder()
             .withAuthenticationSettings(authentications)
-            .followRedirects(false);
+            .followRedirects(false)
+            .withMaxConnections(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, 0))
+            .withConnectionKeepAliveMs(TimeUnit.SECONDS.toMillis(Integer.getInteger(KEEP_ALIVE_PROPERTY, 0)));
         if (allowUntrustedServer) {
             builder.allowUntrustedConnections();
         } else {
@@ -83,7 +101,7 @@ public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFac
             .config("authenticated", Boolean.toString(authenticated))
             .config("allowUntrustedServer", Boolean.toString(allowUntrustedServer));
 
-        return new HttpBuildCacheService(httpClientHelper, noUserInfoUrl);
+        return new HttpBuildCacheService(httpClientHelper, noUserInfoUrl, Boolean.getBoolean(BATCH_LOAD_PROPERTY));
     }
 
     @VisibleForTesting
@@ -16,7 +16,14 @@
 
 package org.gradle.caching.http.internal;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.commons.lang.IncompleteArgumentException;
 import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
@@ -25,9 +32,12 @@ import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheEntryWriter;
@@ -41,12 +51,17 @@ import org.gradle.util.GradleVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -67,19 +82,186 @@ public class HttpBuildCacheService implements BuildCacheService {
         511 // network authentication required
     );
 
+    /**
+     * The content type of batch load responses.
+     *
+     * <p>A batch load is a POST to the root URI whose body lists the requested keys, one per line.
+     * The response contains each requested entry that the server has, as a line with the key and the size of the entry separated by a space, followed by the entry itself.
+     * Entries the server does not have are left out of the response.</p>
+     */
+    static final String BUILD_CACHE_BATCH_CONTENT_TYPE = "application/vnd.gradle.build-cache-batch.v" + TaskOutputPacker.CACHE_ENTRY_FORMAT;
+
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final URI root;
     private final HttpClientHelper httpClientHelper;
+    private final boolean batchLoads;
+
+    private final Object lock = new Object();
+    private final List<PendingLoad> pendingLoads = Lists.newArrayList();
+    private boolean batchLoadInProgress;
+    private volatile boolean batchLoadsSupported = true;
 
     public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url) {
+        this(httpClientHelper, url, false);
+    }
+
+    /**
+     * @param batchLoads Whether to load entries that are requested concurrently with a single batch request. Falls back to loading each entry separately when the server does not support batch loads.
+     */
+    public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, boolean batchLoads) {
         if (!url.getPath().endsWith("/")) {
             throw new IncompleteArgumentException("HTTP cache root URI must end with '/'");
         }
         this.root = url;
         this.httpClientHelper = httpClientHelper;
+        this.batchLoads = batchLoads;
     }
 
     @Override
     public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        if (!batchLoads || !batchLoadsSupported) {
+            return loadSingle(key, reader);
+        }
+
+        PendingLoad load = new PendingLoad(key, reader);
+        List<PendingLoad> batch;
+        synchronized (lock) {
+            pendingLoads.add(load);
+            try {
+                while (batchLoadInProgress && !load.done) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                pendingLoads.remove(load);
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (load.done) {
+                batch = null;
+            } else {
+                // Load the entries that have been requested while the previous batch was in progress along with this one
+                pendingLoads.remove(load);
+                batch = Lists.newArrayList();
+                batch.add(load);
+                while (batch.size() < MAX_BATCH_SIZE && !pendingLoads.isEmpty()) {
+                    batch.add(pendingLoads.remove(0));
+                }
+                batchLoadInProgress = true;
+            }
+        }
+
+        if (batch != null) {
+            try {
+                loadBatch(batch);
+            } finally {
+                synchronized (lock) {
+                    batchLoadInProgress = false;
+                    for (PendingLoad pendingLoad : batch) {
+                        pendingLoad.done = true;
+                    }
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        if (load.failure != null) {
+            throw load.failure;
+        }
+        if (load.fallback) {
+            return loadSingle(key, reader);
+        }
+        return load.found;
+    }
+
+    private void loadBatch(List<PendingLoad> batch) {
+        Map<String, PendingLoad> loadsByHash = Maps.newLinkedHashMap();
+        for (PendingLoad load : batch) {
+            loadsByHash.put(load.key.getHashCode(), load);
+        }
+        HttpPost httpPost = new HttpPost(root);
+        httpPost.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_BATCH_CONTENT_TYPE);
+        addDiagnosticHeaders(httpPost);
+        httpPost.setEntity(new StringEntity(Joiner.on('\n').join(loadsByHash.keySet()), ContentType.create("text/plain", Charsets.UTF_8)));
+
+        CloseableHttpResponse response = null;
+        try {
+            response = httpClientHelper.performHttpRequest(httpPost);
+            StatusLine statusLine = response.getStatusLine();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response for POST {} with {} keys: {}", safeUri(root), loadsByHash.size(), statusLine);
+            }
+            Header contentType = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+            if (!isHttpSuccess(statusLine.getStatusCode()) || contentType == null || !contentType.getValue().startsWith(BUILD_CACHE_BATCH_CONTENT_TYPE)) {
+                LOGGER.info("HTTP build cache at '{}' does not support batch loads (response status {}), loading entries separately.", safeUri(root), statusLine.getStatusCode());
+                batchLoadsSupported = false;
+                for (PendingLoad load : batch) {
+                    load.fallback = true;
+                }
+                return;
+            }
+            readBatch(new BufferedInputStream(response.getEntity().getContent()), loadsByHash);
+        } catch (IOException e) {
+            BuildCacheException failure = new BuildCacheException(String.format("Unable to load entries from '%s': %s", safeUri(root), e.getMessage()), e);
+            for (PendingLoad load : batch) {
+                if (!load.found && load.failure == null) {
+                    load.failure = failure;
+                }
+            }
+        } finally {
+            HttpClientUtils.closeQuietly(response);
+        }
+    }
+
+    private void readBatch(InputStream input, Map<String, PendingLoad> loadsByHash) throws IOException {
+        String header;
+        while ((header = readLine(input)) != null) {
+            int separator = header.indexOf(' ');
+            if (separator < 0) {
+                throw new IOException("Invalid batch entry header '" + header + "'");
+            }
+            String hash = header.substring(0, separator);
+            long size = Long.parseLong(header.substring(separator + 1));
+            InputStream entry = ByteStreams.limit(input, size);
+            PendingLoad load = loadsByHash.get(hash);
+            if (load != null) {
+                try {
+                    load.reader.readFrom(new CloseShieldInputStream(entry));
+                    load.found = true;
+                } catch (RuntimeException e) {
+                    load.failure = e;
+                } catch (IOException e) {
+                    load.failure = new BuildCacheException(String.format("Unable to load entry from '%s': %s", safeUri(root.resolve("./" + hash)), e.getMessage()), e);
+                }
+            }
+            // Skip whatever the reader did not consume, so the next entry can be read
+            ByteStreams.copy(entry, ByteStreams.nullOutputStream());
+        }
+    }
+
+    @Nullable
+    private static String readLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int ch;
+        while ((ch = input.read()) != '\n') {
+            if (ch < 0) {
+                if (line.length() == 0) {
+                    return null;
+                }
+                throw new EOFException("Unexpected end of batch response");
+            }
+            line.append((char) ch);
+        }
+        return line.toString();
+    }
+
+    @VisibleForTesting
+    int getPendingLoadCount() {
+        synchronized (lock) {
+            return pendingLoads.size();
+        }
+    }
+
+    private boolean loadSingle(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
         final URI uri = root.resolve("./" + key.getHashCode());
         HttpGet httpGet = new HttpGet(uri);
         httpGet.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
@@ -226,4 +408,20 @@ public class HttpBuildCacheService implements BuildCacheService {
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
+
+    private static class PendingLoad {
+        final BuildCacheKey key;
+        final BuildCacheEntryReader reader;
+
+        // Guarded by the lock of the service, or only accessed by the thread loading the batch the load is part of
+        boolean done;
+        boolean found;
+        boolean fallback;
+        RuntimeException failure;
+
+        PendingLoad(BuildCacheKey key, BuildCacheEntryReader reader) {
+            this.key = key;
+            this.reader = reader;
+        }
+    }
 }
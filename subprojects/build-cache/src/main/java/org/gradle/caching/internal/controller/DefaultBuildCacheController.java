@@ -37,12 +37,14 @@ import org.gradle.caching.internal.controller.service.LocalBuildCacheServiceHand
 import org.gradle.caching.internal.controller.service.NullBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.NullLocalBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.OpFiringBuildCacheServiceHandle;
+import org.gradle.caching.internal.controller.service.SpoolingBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.StoreTarget;
 import org.gradle.caching.local.internal.BuildCacheTempFileStore;
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.RunnableBuildOperation;
@@ -58,6 +60,8 @@ import java.io.InputStream;
 
 public class DefaultBuildCacheController implements BuildCacheController {
 
+    private static final long MAX_REMOTE_STORE_SPOOL_SIZE = 512L * 1024 * 1024;
+
     @VisibleForTesting
     final BuildCacheServiceHandle legacyLocal;
 
@@ -77,6 +81,20 @@ public class DefaultBuildCacheController implements BuildCacheController {
         BuildOperationExecutor buildOperationExecutor,
         File gradleUserHomeDir,
         boolean logStackTraces
+    ) {
+        this(config, buildOperationExecutor, gradleUserHomeDir, logStackTraces, null, 0);
+    }
+
+    /**
+     * @param remoteStoreConcurrency When greater than 0, entries are stored in the remote build cache in the background, using up to this many threads.
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationExecutor buildOperationExecutor,
+        File gradleUserHomeDir,
+        boolean logStackTraces,
+        @Nullable ExecutorFactory executorFactory,
+        int remoteStoreConcurrency
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
 
@@ -91,7 +109,17 @@ public class DefaultBuildCacheController implements BuildCacheController {
             this.tmp = new DefaultBuildCacheTempFileStore(new File(gradleUserHomeDir, "build-cache-tmp"));
         }
 
-        this.remote = toHandle(config.remote, config.remotePush, BuildCacheServiceRole.REMOTE, buildOperationExecutor, logStackTraces);
+        BuildCacheServiceHandle remote = toHandle(config.remote, config.remotePush, BuildCacheServiceRole.REMOTE, buildOperationExecutor, logStackTraces);
+        if (remoteStoreConcurrency > 0 && remote.canStore()) {
+            remote = new SpoolingBuildCacheServiceHandle(
+                remote,
+                BuildCacheServiceRole.REMOTE,
+                new File(gradleUserHomeDir, "build-cache-tmp"),
+                MAX_REMOTE_STORE_SPOOL_SIZE,
+                executorFactory.create("Remote build cache store", remoteStoreConcurrency)
+            );
+        }
+        this.remote = remote;
     }
 
     @Nullable
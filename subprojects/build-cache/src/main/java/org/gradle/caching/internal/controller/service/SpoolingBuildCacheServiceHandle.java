@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores entries in the background, so that slow uploads do not hold up the execution of tasks.
+ *
+ * <p>Each entry to store is copied to a spool file, which is uploaded by a pool of background threads.
+ * The size of the spool is bounded: when it is full, storing an entry blocks until enough uploads have completed.
+ * Closing the handle waits for the remaining uploads. Entries that are not uploaded because the build cache
+ * was disabled while they were waiting in the spool are reported as dropped.</p>
+ */
+public class SpoolingBuildCacheServiceHandle implements BuildCacheServiceHandle {
+
+    /**
+     * The system property to set the number of concurrent background uploads to the remote build cache. Entries are uploaded synchronously when not set.
+     */
+    public static final String REMOTE_STORE_CONCURRENCY_PROPERTY = "org.gradle.unsafe.build-cache.remote-store-concurrency";
+
+    private static final Logger LOGGER = Logging.getLogger(SpoolingBuildCacheServiceHandle.class);
+
+    private final BuildCacheServiceHandle delegate;
+    private final BuildCacheServiceRole role;
+    private final File spoolDir;
+    private final long maxSpoolSize;
+    private final ManagedExecutor uploaders;
+    private final AtomicInteger dropped = new AtomicInteger();
+    private long spoolSize;
+
+    public SpoolingBuildCacheServiceHandle(BuildCacheServiceHandle delegate, BuildCacheServiceRole role, File spoolDir, long maxSpoolSize, ManagedExecutor uploaders) {
+        this.delegate = delegate;
+        this.role = role;
+        this.spoolDir = spoolDir;
+        this.maxSpoolSize = maxSpoolSize;
+        this.uploaders = uploaders;
+    }
+
+    @Nullable
+    @Override
+    public BuildCacheService getService() {
+        return delegate.getService();
+    }
+
+    @Override
+    public boolean canLoad() {
+        return delegate.canLoad();
+    }
+
+    @Override
+    public void load(BuildCacheKey key, LoadTarget loadTarget) {
+        delegate.load(key, loadTarget);
+    }
+
+    @Override
+    public boolean canStore() {
+        return delegate.canStore();
+    }
+
+    @Override
+    public void store(final BuildCacheKey key, StoreTarget storeTarget) {
+        final long size = storeTarget.getSize();
+        reserve(size);
+        final File spoolFile;
+        try {
+            spoolFile = spool(key, storeTarget);
+        } catch (RuntimeException e) {
+            release(size);
+            throw e;
+        }
+        uploaders.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (delegate.canStore()) {
+                        delegate.store(key, new StoreTarget(spoolFile));
+                    } else {
+                        dropped.incrementAndGet();
+                    }
+                } finally {
+                    GFileUtils.deleteQuietly(spoolFile);
+                    release(size);
+                }
+            }
+        });
+    }
+
+    private File spool(BuildCacheKey key, StoreTarget storeTarget) {
+        File spoolFile = null;
+        boolean spooled = false;
+        try {
+            GFileUtils.mkdirs(spoolDir);
+            spoolFile = File.createTempFile(key.getHashCode() + "-", ".spool", spoolDir);
+            storeTarget.writeTo(new FileOutputStream(spoolFile));
+            spooled = true;
+            return spoolFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spool entry " + key.getDisplayName() + " for " + role.getDisplayName() + " build cache", e);
+        } finally {
+            if (!spooled && spoolFile != null) {
+                GFileUtils.deleteQuietly(spoolFile);
+            }
+        }
+    }
+
+    private synchronized void reserve(long size) {
+        // Always admit an entry when the spool is empty, even if it is larger than the spool
+        while (spoolSize > 0 && spoolSize + size > maxSpoolSize) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        spoolSize += size;
+    }
+
+    private synchronized void release(long size) {
+        spoolSize -= size;
+        notifyAll();
+    }
+
+    @Override
+    public void close() {
+        try {
+            uploaders.stop();
+        } finally {
+            int droppedCount = dropped.get();
+            if (droppedCount > 0) {
+                LOGGER.warn("{} {} not stored in the {} build cache, as it was disabled while the {} waiting to be uploaded.",
+                    droppedCount, droppedCount == 1 ? "entry was" : "entries were", role.getDisplayName(), droppedCount == 1 ? "entry was" : "entries were");
+            }
+            delegate.close();
+        }
+    }
+}
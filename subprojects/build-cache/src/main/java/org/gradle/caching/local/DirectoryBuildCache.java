@@ -18,7 +18,6 @@ package org.gradle.caching.local;
 
 import org.gradle.api.Incubating;
 import org.gradle.caching.configuration.AbstractBuildCache;
-import org.gradle.util.DeprecationLogger;
 
 import javax.annotation.Nullable;
 
@@ -32,6 +31,7 @@ import javax.annotation.Nullable;
 public class DirectoryBuildCache extends AbstractBuildCache {
     private Object directory;
     private int removeUnusedEntriesAfterDays = 7;
+    private long targetSizeInMB;
 
     /**
      * Returns the directory to use to store the build cache.
@@ -51,24 +51,23 @@ public class DirectoryBuildCache extends AbstractBuildCache {
     }
 
     /**
-     * Used to be the target size of the build cache in megabytes, now returns {@code 0}.
+     * Returns the target size of the build cache in megabytes. Defaults to {@code 0}, which means that the size of the build cache is not limited.
      *
-     * @deprecated Use {@link #getRemoveUnusedEntriesAfterDays()} instead.
+     * When the build cache grows larger than its target size, the least recently used entries are removed in the background until it is below the target size again.
+     * This happens in addition to removing entries that have not been used for {@link #getRemoveUnusedEntriesAfterDays()} days.
      */
-    @Deprecated
     public long getTargetSizeInMB() {
-        DeprecationLogger.nagUserOfReplacedMethod("DirectoryBuildCache.getTargetSizeInMB()", "getRemoveUnusedEntriesAfterDays()");
-        return 0;
+        return targetSizeInMB;
     }
 
     /**
-     * Used to set the target size of the build cache in megabytes, now has no effect.
-     *
-     * @deprecated Use {@link #setRemoveUnusedEntriesAfterDays(int)} instead.
+     * Sets the target size of the build cache in megabytes. Set to {@code 0} to not limit the size of the build cache.
      */
-    @Deprecated
     public void setTargetSizeInMB(long targetSizeInMB) {
-        DeprecationLogger.nagUserOfReplacedMethod("DirectoryBuildCache.setTargetSizeInMB()", "setRemoveUnusedEntriesAfterDays()");
+        if (targetSizeInMB < 0) {
+            throw new IllegalArgumentException("Directory build cache target size cannot be negative.");
+        }
+        this.targetSizeInMB = targetSizeInMB;
     }
 
     /**
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps the local build cache directory under a target size by removing the least recently used entries. Loading an entry marks it as recently used by updating its modification time.
+ *
+ * <p>The size of the cache is not measured on every build. Instead, an estimate is kept in a properties file in the cache directory and updated with the size of the entries stored by each build.
+ * The entries are only listed when this estimate exceeds the target size, or is not known. Eviction then runs in the background while the build uses the cache, and
+ * removes entries until the cache is below 90% of the target size, so that it does not need to run again for a while.</p>
+ */
+public class DirectoryBuildCacheEviction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBuildCacheEviction.class);
+
+    public static final String SIZE_FILE_NAME = "size.properties";
+    private static final String SIZE_PROPERTY = "size";
+    private static final int LOW_WATER_MARK_PERCENT = 90;
+    private static final int ENTRIES_TO_REMOVE_PER_LOCK = 100;
+
+    private final PersistentCache persistentCache;
+    private final Lock lock;
+    private final long targetSizeInBytes;
+    private final ExecutorFactory executorFactory;
+    private final File sizeFile;
+    private final AtomicLong storedBytes = new AtomicLong();
+    private ManagedExecutor executor;
+    private volatile boolean stopRequested;
+
+    /**
+     * @param lock The lock that has to be held to remove an entry, to prevent removing entries that are being loaded.
+     */
+    public DirectoryBuildCacheEviction(PersistentCache persistentCache, Lock lock, long targetSizeInBytes, ExecutorFactory executorFactory) {
+        this.persistentCache = persistentCache;
+        this.lock = lock;
+        this.targetSizeInBytes = targetSizeInBytes;
+        this.executorFactory = executorFactory;
+        this.sizeFile = new File(persistentCache.getBaseDir(), SIZE_FILE_NAME);
+    }
+
+    /**
+     * Starts removing entries in the background when the cache is estimated to be larger than the target size.
+     */
+    public void start() {
+        Long estimatedSize = readEstimatedSize();
+        if (estimatedSize != null && estimatedSize <= targetSizeInBytes) {
+            return;
+        }
+        executor = executorFactory.create("Build cache eviction");
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evict();
+                } catch (Exception e) {
+                    LOGGER.warn("Could not remove least recently used entries from " + persistentCache, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Called after an entry of the given size has been stored in the cache.
+     */
+    public void entryStored(long size) {
+        storedBytes.addAndGet(size);
+    }
+
+    /**
+     * Interrupts any eviction that is under way, and records the size of the entries stored since this instance was started.
+     */
+    public void stop() {
+        stopRequested = true;
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+        final long stored = storedBytes.getAndSet(0);
+        if (stored > 0) {
+            persistentCache.withFileLock(new Runnable() {
+                @Override
+                public void run() {
+                    Long estimatedSize = readEstimatedSizeInsideLock();
+                    if (estimatedSize != null) {
+                        writeEstimatedSizeInsideLock(estimatedSize + stored);
+                    }
+                }
+            });
+        }
+    }
+
+    private void evict() {
+        final Long estimatedSizeBeforeListing = readEstimatedSize();
+        // Entries stored by this process from now on are not part of the listing
+        storedBytes.set(0);
+        List<Entry> entries = listEntries();
+        long measuredSize = 0;
+        for (Entry entry : entries) {
+            measuredSize += entry.length;
+        }
+        // Other processes may have stored entries while the directory was listed
+        final long sizeAfterListing = measuredSize;
+        persistentCache.withFileLock(new Runnable() {
+            @Override
+            public void run() {
+                Long estimatedSize = readEstimatedSizeInsideLock();
+                long storedMeanwhile = estimatedSize == null || estimatedSizeBeforeListing == null ? 0 : Math.max(0, estimatedSize - estimatedSizeBeforeListing);
+                writeEstimatedSizeInsideLock(sizeAfterListing + storedMeanwhile);
+            }
+        });
+        if (measuredSize <= targetSizeInBytes) {
+            return;
+        }
+
+        Collections.sort(entries, LEAST_RECENTLY_USED_FIRST);
+        long lowWaterMark = targetSizeInBytes / 100 * LOW_WATER_MARK_PERCENT;
+        long excessSize = measuredSize - lowWaterMark;
+        long removedSize = 0;
+        int index = 0;
+        while (index < entries.size() && removedSize < excessSize && !stopRequested) {
+            final List<Entry> batch = entries.subList(index, Math.min(entries.size(), index + ENTRIES_TO_REMOVE_PER_LOCK));
+            final long sizeToRemove = excessSize - removedSize;
+            index += batch.size();
+            long removedFromBatch = persistentCache.withFileLock(new Factory<Long>() {
+                @Override
+                public Long create() {
+                    return removeInsideLock(batch, sizeToRemove);
+                }
+            });
+            removedSize += removedFromBatch;
+        }
+
+        final long removed = removedSize;
+        persistentCache.withFileLock(new Runnable() {
+            @Override
+            public void run() {
+                Long estimatedSize = readEstimatedSizeInsideLock();
+                if (estimatedSize != null) {
+                    writeEstimatedSizeInsideLock(Math.max(0, estimatedSize - removed));
+                }
+            }
+        });
+        LOGGER.info("{} removed least recently used entries ({} reclaimed).", persistentCache, FileUtils.byteCountToDisplaySize(removedSize));
+    }
+
+    private long removeInsideLock(List<Entry> batch, long sizeToRemove) {
+        long removedSize = 0;
+        lock.lock();
+        try {
+            for (Entry entry : batch) {
+                if (removedSize >= sizeToRemove) {
+                    break;
+                }
+                // Skip entries that have been used since the directory was listed
+                if (entry.file.lastModified() == entry.lastModified && GFileUtils.deleteQuietly(entry.file)) {
+                    removedSize += entry.length;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return removedSize;
+    }
+
+    private List<Entry> listEntries() {
+        File[] files = persistentCache.getBaseDir().listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && !file.equals(sizeFile) && !persistentCache.getReservedCacheFiles().contains(file);
+            }
+        });
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = Lists.newArrayListWithCapacity(files.length);
+        for (File file : files) {
+            entries.add(new Entry(file, file.lastModified(), file.length()));
+        }
+        return entries;
+    }
+
+    @Nullable
+    private Long readEstimatedSize() {
+        return persistentCache.withFileLock(new Factory<Long>() {
+            @Override
+            public Long create() {
+                return readEstimatedSizeInsideLock();
+            }
+        });
+    }
+
+    @Nullable
+    private Long readEstimatedSizeInsideLock() {
+        if (!sizeFile.isFile()) {
+            return null;
+        }
+        try {
+            String size = GUtil.loadProperties(sizeFile).getProperty(SIZE_PROPERTY);
+            return size == null ? null : Long.valueOf(size);
+        } catch (Exception e) {
+            LOGGER.debug("Could not read the estimated size of " + persistentCache, e);
+            return null;
+        }
+    }
+
+    private void writeEstimatedSizeInsideLock(long size) {
+        Properties properties = new Properties();
+        properties.setProperty(SIZE_PROPERTY, String.valueOf(size));
+        GUtil.saveProperties(properties, sizeFile);
+    }
+
+    private static final Comparator<Entry> LEAST_RECENTLY_USED_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            return o1.lastModified < o2.lastModified ? -1 : (o1.lastModified == o2.lastModified ? 0 : 1);
+        }
+    };
+
+    private static class Entry {
+        final File file;
+        final long lastModified;
+        final long length;
+
+        Entry(File file, long lastModified, long length) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -26,11 +26,13 @@ import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.util.GFileUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -47,12 +49,26 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private final BuildCacheTempFileStore tempFileStore;
     private final String failedFileSuffix;
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final DirectoryBuildCacheEviction eviction;
 
     public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, String failedFileSuffix) {
+        this(fileStore, persistentCache, tempFileStore, failedFileSuffix, 0, null);
+    }
+
+    /**
+     * @param targetSizeInBytes When greater than 0, least recently used entries are removed in the background to keep the cache under this size.
+     */
+    public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, String failedFileSuffix, long targetSizeInBytes, @Nullable ExecutorFactory executorFactory) {
         this.fileStore = fileStore;
         this.persistentCache = persistentCache;
         this.tempFileStore = tempFileStore;
         this.failedFileSuffix = failedFileSuffix;
+        if (targetSizeInBytes > 0) {
+            this.eviction = new DirectoryBuildCacheEviction(persistentCache, lock.writeLock(), targetSizeInBytes, executorFactory);
+            eviction.start();
+        } else {
+            this.eviction = null;
+        }
     }
 
     private static class LoadAction implements Action<File> {
@@ -168,7 +184,11 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     }
 
     private void storeInsideLock(BuildCacheKey key, File file) {
+        long size = file.length();
         fileStore.move(key.getHashCode(), file);
+        if (eviction != null) {
+            eviction.entryStored(size);
+        }
     }
 
     @Override
@@ -183,6 +203,9 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
 
     @Override
     public void close() {
+        if (eviction != null) {
+            eviction.stop();
+        }
         persistentCache.close();
     }
 
@@ -29,6 +29,7 @@ import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistr
 import org.gradle.caching.internal.FinalizeBuildCacheConfigurationBuildOperationType
 import org.gradle.caching.local.DirectoryBuildCache
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.reflect.DirectInstantiator
 import org.gradle.testing.internal.util.Specification
@@ -61,7 +62,9 @@ class BuildCacheControllerFactoryTest extends Specification {
             buildCacheEnabled ? ENABLED : DISABLED,
             ONLINE,
             false,
-            DirectInstantiator.INSTANCE
+            DirectInstantiator.INSTANCE,
+            Stub(ExecutorFactory),
+            0
         )
         assert controllerType.isInstance(controller)
         controllerType.cast(controller)
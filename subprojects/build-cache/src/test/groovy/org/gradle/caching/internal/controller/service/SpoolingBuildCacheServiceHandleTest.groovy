@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import org.gradle.api.UncheckedIOException
+import org.gradle.caching.BuildCacheKey
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class SpoolingBuildCacheServiceHandleTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def key = Stub(BuildCacheKey) {
+        getHashCode() >> "key"
+        getDisplayName() >> "key"
+    }
+    def delegate = Mock(BuildCacheServiceHandle)
+    def executorFactory = new DefaultExecutorFactory()
+    def spoolDir = tmpDir.file("spool")
+    def handle = new SpoolingBuildCacheServiceHandle(delegate, BuildCacheServiceRole.REMOTE, spoolDir, 1024, executorFactory.create("test", 2))
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "stores spooled entry in the background"() {
+        def entry = tmpDir.file("entry") << "contents"
+        def storeTarget = new StoreTarget(entry)
+        def stored = new ByteArrayOutputStream()
+
+        when:
+        handle.store(key, storeTarget)
+        entry.delete()
+        handle.close()
+
+        then:
+        storeTarget.stored
+        1 * delegate.canStore() >> true
+        1 * delegate.store(key, _) >> { BuildCacheKey key, StoreTarget spooled ->
+            spooled.writeTo(stored)
+        }
+        1 * delegate.close()
+        0 * _
+
+        and:
+        stored.toString() == "contents"
+        spoolDir.list().length == 0
+    }
+
+    def "drops spooled entries when the build cache is disabled before they are uploaded"() {
+        def entry = tmpDir.file("entry") << "contents"
+
+        when:
+        handle.store(key, new StoreTarget(entry))
+        handle.close()
+
+        then:
+        1 * delegate.canStore() >> false
+        1 * delegate.close()
+        0 * _
+
+        and:
+        spoolDir.list().length == 0
+    }
+
+    def "removes spool file when entry cannot be spooled"() {
+        def missing = tmpDir.file("missing")
+
+        when:
+        handle.store(key, new StoreTarget(missing))
+
+        then:
+        thrown(UncheckedIOException)
+        0 * delegate.store(_, _)
+
+        and:
+        spoolDir.list().length == 0
+    }
+}
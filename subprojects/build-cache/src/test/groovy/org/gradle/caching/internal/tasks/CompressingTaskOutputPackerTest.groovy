@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.GZIPOutputStream
+
+class CompressingTaskOutputPackerTest extends Specification {
+    def delegate = Mock(TaskOutputPacker)
+    def readOrigin = Stub(TaskOutputOriginReader)
+    def writeOrigin = Stub(TaskOutputOriginWriter)
+
+    @Unroll
+    def "can unpack entry packed with #compression compression"() {
+        def output = new ByteArrayOutputStream()
+        def packer = new CompressingTaskOutputPacker(delegate, compression)
+
+        when:
+        packer.pack(new TreeSet(), [:], output, writeOrigin)
+
+        then:
+        1 * delegate.pack(_, _, _, writeOrigin) >> { propertySpecs, outputSnapshots, OutputStream stream, writer ->
+            stream.write("contents".bytes)
+            new TaskOutputPacker.PackResult(1)
+        }
+        0 * _
+
+        when:
+        // Entries can be unpacked regardless of the compression configured for packing
+        def unpacker = new CompressingTaskOutputPacker(delegate, TaskOutputCompression.NONE)
+        unpacker.unpack(new TreeSet(), new ByteArrayInputStream(output.toByteArray()), readOrigin)
+
+        then:
+        1 * delegate.unpack(_, _, readOrigin) >> { propertySpecs, InputStream stream, reader ->
+            assert stream.text == "contents"
+            null
+        }
+        0 * _
+
+        where:
+        compression << TaskOutputCompression.values()
+    }
+
+    def "writes GZIP entries without a header"() {
+        def output = new ByteArrayOutputStream()
+        def packer = new CompressingTaskOutputPacker(delegate, TaskOutputCompression.GZIP)
+
+        when:
+        packer.pack(new TreeSet(), [:], output, writeOrigin)
+
+        then:
+        1 * delegate.pack(_, _, _, writeOrigin) >> new TaskOutputPacker.PackResult(1)
+        output.toByteArray()[0..1] == [(byte) 0x1f, (byte) 0x8b]
+    }
+
+    def "entries with a header share an entry format for the cache key regardless of compression"() {
+        expect:
+        CompressingTaskOutputPacker.getEntryFormat(TaskOutputCompression.GZIP) == null
+        CompressingTaskOutputPacker.getEntryFormat(TaskOutputCompression.FAST) != null
+        CompressingTaskOutputPacker.getEntryFormat(TaskOutputCompression.FAST) == CompressingTaskOutputPacker.getEntryFormat(TaskOutputCompression.NONE)
+    }
+
+    def "can unpack entry written by older versions"() {
+        def output = new ByteArrayOutputStream()
+        def gzipOutput = new GZIPOutputStream(output)
+        gzipOutput.write("contents".bytes)
+        gzipOutput.close()
+        def packer = new CompressingTaskOutputPacker(delegate, TaskOutputCompression.FAST)
+
+        when:
+        packer.unpack(new TreeSet(), new ByteArrayInputStream(output.toByteArray()), readOrigin)
+
+        then:
+        1 * delegate.unpack(_, _, readOrigin) >> { propertySpecs, InputStream stream, reader ->
+            assert stream.text == "contents"
+            null
+        }
+    }
+
+    @Unroll
+    def "fails to unpack entry with unknown #description"() {
+        def packer = new CompressingTaskOutputPacker(delegate)
+
+        when:
+        packer.unpack(new TreeSet(), new ByteArrayInputStream(bytes as byte[]), readOrigin)
+
+        then:
+        def ex = thrown IllegalStateException
+        ex.message.startsWith("Cached result format error")
+        0 * _
+
+        where:
+        description   | bytes
+        "format"      | "not a cache entry".bytes
+        "version"     | ("GBCE".bytes as List) + [2, 0]
+        "compression" | ("GBCE".bytes as List) + [1, 42]
+    }
+}
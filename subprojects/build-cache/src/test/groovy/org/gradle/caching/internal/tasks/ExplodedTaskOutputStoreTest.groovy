@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.DirContentSnapshot
+import org.gradle.api.internal.changedetection.state.FileHashSnapshot
+import org.gradle.api.internal.tasks.OriginTaskExecutionMetadata
+import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter
+import org.gradle.internal.hash.DefaultStreamHasher
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.nativeplatform.filesystem.FileSystem
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.OutputType.DIRECTORY
+import static org.gradle.api.internal.tasks.OutputType.FILE
+
+@CleanupTestDirectory
+class ExplodedTaskOutputStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def originMetadata = Mock(OriginTaskExecutionMetadata)
+    def readOrigin = Stub(TaskOutputOriginReader) {
+        execute(_) >> originMetadata
+    }
+    def fileSystem = Stub(FileSystem) {
+        getUnixMode(_) >> 0644
+    }
+    def stringInterner = new StringInterner()
+    def streamHasher = new DefaultStreamHasher({ Hashing.md5().newHasher() })
+    def packer = new TarTaskOutputPacker(fileSystem, streamHasher, stringInterner)
+    def store = new ExplodedTaskOutputStore(temporaryFolder.file("store"), packer, fileSystem, streamHasher, stringInterner)
+    def key = Stub(BuildCacheKey) {
+        getHashCode() >> "0123456789abcdef"
+    }
+
+    def sourceDir = temporaryFolder.createDir("source")
+    def sourceFile = temporaryFolder.file("source.txt") << "file"
+    def targetDir = temporaryFolder.file("target")
+    def targetFile = temporaryFolder.file("target.txt")
+    byte[] archive
+
+    def setup() {
+        sourceDir.file("a.txt") << "a"
+        sourceDir.file("sub/b.txt") << "b"
+        def output = new ByteArrayOutputStream()
+        def outputSnapshots = [
+            dir: [
+                (sourceDir.absolutePath): DirContentSnapshot.INSTANCE,
+                (sourceDir.file("a.txt").absolutePath): new FileHashSnapshot(TestFile.md5(sourceDir.file("a.txt"))),
+                (sourceDir.file("sub").absolutePath): DirContentSnapshot.INSTANCE,
+                (sourceDir.file("sub/b.txt").absolutePath): new FileHashSnapshot(TestFile.md5(sourceDir.file("sub/b.txt"))),
+            ],
+            file: [
+                (sourceFile.absolutePath): new FileHashSnapshot(TestFile.md5(sourceFile))
+            ]
+        ]
+        packer.pack(props(sourceDir, sourceFile), outputSnapshots, output, Stub(TaskOutputOriginWriter))
+        archive = output.toByteArray()
+    }
+
+    def "links outputs from an entry that has been unpacked before"() {
+        def unpacked = store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+        targetDir.deleteDir()
+        targetFile.delete()
+
+        when:
+        def linked = store.unpack(key, props(targetDir, targetFile), unreadableInput(), readOrigin)
+
+        then:
+        targetDir.file("a.txt").text == "a"
+        targetDir.file("sub/b.txt").text == "b"
+        targetFile.text == "file"
+        linked.originMetadata == originMetadata
+        linked.entries == unpacked.entries
+        linked.snapshots.keySet() == unpacked.snapshots.keySet()
+        linked.snapshots.values()*.path == unpacked.snapshots.values()*.path
+        linked.snapshots.values()*.relativePath == unpacked.snapshots.values()*.relativePath
+        linked.snapshots.values()*.content*.contentMd5 == unpacked.snapshots.values()*.content*.contentMd5
+    }
+
+    def "unpacks the archive again when an output has been modified in place"() {
+        store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+        targetFile.withWriter { it.write("modified content") }
+
+        when:
+        store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+
+        then:
+        targetFile.text == "file"
+        targetDir.file("a.txt").text == "a"
+    }
+
+    def "unpacks the archive again when an output has been modified in place without changing its length or modification time"() {
+        store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+        def lastModified = targetFile.lastModified()
+        targetFile.withWriter { it.write("FILE") }
+        targetFile.setLastModified(lastModified)
+
+        when:
+        def result = store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+
+        then:
+        targetFile.text == "file"
+        result.snapshots.get("file")*.content*.contentMd5 == [TestFile.md5(sourceFile)]
+    }
+
+    def "unpacks the archive when the entry has been removed"() {
+        store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+        temporaryFolder.file("store").deleteDir()
+        targetFile.delete()
+
+        when:
+        store.unpack(key, props(targetDir, targetFile), new ByteArrayInputStream(archive), readOrigin)
+
+        then:
+        targetFile.text == "file"
+    }
+
+    private static SortedSet<ResolvedTaskOutputFilePropertySpec> props(File dir, File file) {
+        [new ResolvedTaskOutputFilePropertySpec("dir", DIRECTORY, dir), new ResolvedTaskOutputFilePropertySpec("file", FILE, file)] as SortedSet
+    }
+
+    private static InputStream unreadableInput() {
+        return new InputStream() {
+            @Override
+            int read() throws IOException {
+                throw new IOException("The archive should not be read")
+            }
+        }
+    }
+}
@@ -25,6 +25,8 @@ import org.gradle.api.internal.tasks.OutputType
 import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.hash.DefaultStreamHasher
 import org.gradle.internal.hash.Hashing
 import org.gradle.internal.nativeplatform.filesystem.FileSystem
@@ -331,6 +333,71 @@ class TarTaskOutputPackerTest extends Specification {
         0 * _
     }
 
+    def "can unpack task output directory with concurrent writers"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        def fileNames = (1..50).collect { "file-${it}.txt" }
+        fileNames.each { sourceOutputDir.file(it) << "output of $it" }
+        def sourceLargeFile = sourceOutputDir.file("large.bin")
+        sourceLargeFile.bytes = new byte[2 * 1024 * 1024]
+        def targetOutputDir = temporaryFolder.file("target")
+        def output = new ByteArrayOutputStream()
+        def executorFactory = new DefaultExecutorFactory()
+        def packedFiles = { prop(DIRECTORY, sourceOutputDir).outputSnapshots().keySet().collect { new File(it) }.findAll { it != sourceOutputDir } }
+        packer = new TarTaskOutputPacker(fileSystem, streamHasher, stringInterner, executorFactory)
+
+        when:
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        then:
+        51 * fileSystem.getUnixMode(_) >> 0644
+        0 * _
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        def result = unpack input, prop(DIRECTORY, targetOutputDir)
+
+        then:
+        1 * fileSystem.chmod(targetOutputDir, 0755)
+        51 * fileSystem.chmod(_, 0644)
+        then:
+        fileNames.every { targetOutputDir.file(it).text == "output of $it" }
+        targetOutputDir.file("large.bin").length() == sourceLargeFile.length()
+        // Snapshots are in the same order as the entries in the archive
+        result.snapshots.get("test")*.relativePath*.pathString == [targetOutputDir.name] + packedFiles()*.name
+        0 * _
+
+        cleanup:
+        packer.stop()
+        executorFactory.stop()
+    }
+
+    def "creates the writer pool once and stops it when the packer is stopped"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("a.txt") << "a"
+        sourceOutputDir.file("b.txt") << "b"
+        def output = new ByteArrayOutputStream()
+        def executorFactory = Mock(ExecutorFactory)
+        def writers = new DefaultExecutorFactory().create("writers", 4)
+        packer = new TarTaskOutputPacker(Stub(FileSystem), streamHasher, stringInterner, executorFactory)
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        when:
+        2.times { index ->
+            unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, temporaryFolder.file("target-$index"))
+        }
+
+        then:
+        1 * executorFactory.create("Build cache output unpacker", 4) >> writers
+        temporaryFolder.file("target-1/b.txt").text == "b"
+        !writers.shutdown
+
+        when:
+        packer.stop()
+
+        then:
+        writers.shutdown
+    }
+
     def pack(OutputStream output, TaskOutputOriginWriter writeOrigin = this.writeOrigin, PropertyDefinition... propertyDefs) {
         def propertySpecs = propertyDefs*.property as SortedSet
         def outputSnapshots = propertyDefs.collectEntries { propertyDef ->
@@ -92,7 +92,7 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
         def result = load.load(input)
 
         then:
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated([outputDir.absolutePath, outputFile.absolutePath])
         1 * originFactory.createReader(task)
 
         then:
@@ -134,7 +134,7 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
         command.load(input)
 
         then:
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated([outputFile.absolutePath])
         1 * originFactory.createReader(task)
 
         then:
@@ -169,7 +169,8 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
         command.load(input)
 
         then:
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * outputProperties.iterator() >> [].iterator()
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated([])
         1 * originFactory.createReader(task)
 
         then:
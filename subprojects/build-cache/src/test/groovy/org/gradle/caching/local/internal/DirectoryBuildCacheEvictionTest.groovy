@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.GUtil
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.locks.ReentrantLock
+
+@UsesNativeServices
+@CleanupTestDirectory
+class DirectoryBuildCacheEvictionTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def cacheDir = temporaryFolder.createDir("cache")
+    def sizeFile = cacheDir.file(DirectoryBuildCacheEviction.SIZE_FILE_NAME)
+    def persistentCache = Stub(PersistentCache) {
+        getBaseDir() >> cacheDir
+        getReservedCacheFiles() >> [cacheDir.file("cache.properties")]
+        withFileLock(_ as Runnable) >> { Runnable action -> action.run() }
+        withFileLock(_ as Factory) >> { Factory action -> action.create() }
+    }
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> Stub(ManagedExecutor) {
+            execute(_) >> { Runnable action -> action.run() }
+        }
+    }
+
+    def "removes least recently used entries until the cache is below the low water mark"() {
+        def entries = (0..9).collect { createEntry("entry-$it", 100, it) }
+        cacheDir.file("cache.properties").text = ""
+
+        when:
+        def eviction = eviction(800)
+        eviction.start()
+        eviction.stop()
+
+        then:
+        entries[0..2].every { !it.exists() }
+        entries[3..9].every { it.exists() }
+        estimatedSize == 700
+    }
+
+    def "does not list the cache directory when the estimated size is below the target size"() {
+        def entries = (0..9).collect { createEntry("entry-$it", 100, it) }
+        estimatedSize = 500
+        def backgroundExecutorFactory = Mock(ExecutorFactory)
+
+        when:
+        def eviction = new DirectoryBuildCacheEviction(persistentCache, new ReentrantLock(), 800, backgroundExecutorFactory)
+        eviction.start()
+        eviction.entryStored(100)
+        eviction.stop()
+
+        then:
+        0 * backgroundExecutorFactory._
+        entries.every { it.exists() }
+        estimatedSize == 600
+    }
+
+    def "measures the cache when the estimated size is not known"() {
+        (0..4).collect { createEntry("entry-$it", 100, it) }
+
+        when:
+        def eviction = eviction(800)
+        eviction.start()
+        eviction.stop()
+
+        then:
+        estimatedSize == 500
+    }
+
+    def "does not remove entries that have been used since the cache was listed"() {
+        def entries = (0..9).collect { createEntry("entry-$it", 100, it) }
+        def lock = new ReentrantLock() {
+            @Override
+            void lock() {
+                // Simulate the entry being loaded after the cache was listed
+                entries[0].lastModified = System.currentTimeMillis()
+                super.lock()
+            }
+        }
+
+        when:
+        def eviction = new DirectoryBuildCacheEviction(persistentCache, lock, 800, executorFactory)
+        eviction.start()
+        eviction.stop()
+
+        then:
+        entries[0].exists()
+        entries[1..3].every { !it.exists() }
+        entries[4..9].every { it.exists() }
+    }
+
+    private DirectoryBuildCacheEviction eviction(long targetSizeInBytes) {
+        new DirectoryBuildCacheEviction(persistentCache, new ReentrantLock(), targetSizeInBytes, executorFactory)
+    }
+
+    private TestFile createEntry(String name, int size, int age) {
+        def file = cacheDir.file(name)
+        file.bytes = new byte[size]
+        file.lastModified = 1000000000000L + age * 1000L
+        file
+    }
+
+    private long getEstimatedSize() {
+        Long.parseLong(GUtil.loadProperties(sizeFile).getProperty("size"))
+    }
+
+    private void setEstimatedSize(long size) {
+        sizeFile.text = "size=$size"
+    }
+}
@@ -163,6 +163,49 @@ public interface TaskContainer extends TaskCollection<Task>, PolymorphicDomainOb
      */
     <T extends Task> T create(String name, Class<T> type, Action<? super T> configuration) throws InvalidUserDataException;
 
+    /**
+     * <p>Registers a {@link Task} with the given name, type and configuration action. The task is not created until it is required,
+     * for example when it is added to the task graph or located by name, so that builds do not create and configure tasks that they do not use.</p>
+     *
+     * <p>When the task is created, it is added to this container and then configured using the given action. Actions registered using
+     * {@link #withType(Class, Action)} or {@link #all(Action)} are applied to the task at that point.</p>
+     *
+     * @param name The name of the task.
+     * @param type The type of task to create.
+     * @param configurationAction The action to configure the task with.
+     * @return A provider for the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @since 4.6
+     */
+    @Incubating
+    <T extends Task> TaskProvider<T> register(String name, Class<T> type, Action<? super T> configurationAction) throws InvalidUserDataException;
+
+    /**
+     * <p>Registers a {@link Task} with the given name and type. The task is not created until it is required.</p>
+     *
+     * @param name The name of the task.
+     * @param type The type of task to create.
+     * @return A provider for the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @see #register(String, Class, Action)
+     * @since 4.6
+     */
+    @Incubating
+    <T extends Task> TaskProvider<T> register(String name, Class<T> type) throws InvalidUserDataException;
+
+    /**
+     * <p>Registers a {@link DefaultTask} with the given name and configuration action. The task is not created until it is required.</p>
+     *
+     * @param name The name of the task.
+     * @param configurationAction The action to configure the task with.
+     * @return A provider for the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @see #register(String, Class, Action)
+     * @since 4.6
+     */
+    @Incubating
+    TaskProvider<Task> register(String name, Action<? super Task> configurationAction) throws InvalidUserDataException;
+
     /**
      * <p>Creates a {@link Task} with the given name and adds it to this container, replacing any existing task with the
      * same name.</p>
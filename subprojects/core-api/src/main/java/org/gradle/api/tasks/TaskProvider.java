@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks;
+
+import org.gradle.api.Action;
+import org.gradle.api.Incubating;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+import org.gradle.internal.HasInternalProtocol;
+
+/**
+ * Provides a task that has been registered with a {@link TaskContainer}, but which may not have been created yet.
+ *
+ * <p>The task is created and configured the first time it is required, for example when it is added to the task graph, when it is located
+ * using {@link TaskContainer#getByName(String)} or when {@link #get()} is called on this provider. A task provider can be used as a task dependency
+ * without creating the task.</p>
+ *
+ * <p><b>Note:</b> This interface is not intended for implementation by build script or plugin authors.</p>
+ *
+ * @param <T> Type of the task
+ * @since 4.6
+ */
+@Incubating
+@HasInternalProtocol
+public interface TaskProvider<T extends Task> extends Provider<T> {
+    /**
+     * Returns the name of the task.
+     */
+    String getName();
+
+    /**
+     * Configures the task with the given action. The action is executed when the task is created, or immediately when the task has already been created.
+     *
+     * @param action The action to configure the task with.
+     */
+    void configure(Action<? super T> action);
+}
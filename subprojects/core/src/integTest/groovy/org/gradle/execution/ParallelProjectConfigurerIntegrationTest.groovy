@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.plugin.PluginBuilder
+
+class ParallelProjectConfigurerIntegrationTest extends AbstractIntegrationSpec {
+    def pluginBuilder = new PluginBuilder(file("plugin"))
+    def projects = ["a", "a:b", "a:b:c", "a:d", "a:d:e", "f", "f:g", "f:g:h"]
+
+    def setup() {
+        pluginBuilder.addPlugin("project.task('hello')")
+        pluginBuilder.publishTo(executer, file("plugin.jar"))
+
+        settingsFile << "include ${projects.collect { "'$it'" }.join(', ')}"
+        file("gradle.properties") << "${ParallelProjectConfigurer.DECOUPLED_PROPERTY}=true"
+        buildFile << "ext.configured = true"
+        projects.each { path ->
+            file("${path.replace(':', '/')}/build.gradle") << """
+                buildscript {
+                    dependencies { classpath files("${file("plugin.jar").toURI()}") }
+                }
+
+                apply plugin: org.gradle.test.TestPlugin
+
+                assert parent.configured
+                assert tasks.findByName('hello') != null
+                ext.configured = true
+            """
+        }
+        executer.withArguments("--parallel", "-D${ParallelProjectConfigurer.PARALLEL_CONFIGURATION_PROPERTY}=true")
+    }
+
+    def "configures a decoupled hierarchy that applies buildscript plugins"() {
+        when:
+        succeeds "hello"
+
+        then:
+        projects.each { path ->
+            executedAndNotSkipped ":$path:hello"
+        }
+    }
+}
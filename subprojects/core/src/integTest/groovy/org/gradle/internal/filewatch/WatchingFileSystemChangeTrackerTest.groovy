@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch
+
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+
+@Requires(TestPrecondition.NOT_MAC_OS_X)
+class WatchingFileSystemChangeTrackerTest extends ConcurrentSpec {
+    @Rule TestNameTestDirectoryProvider testDirectory
+    def fileSystem = Stub(FileSystem)
+    def fileWatcherFactory = new DefaultFileWatcherFactory(executorFactory, fileSystem)
+    def tracker = new WatchingFileSystemChangeTracker(fileWatcherFactory)
+
+    def cleanup() {
+        tracker.stop()
+        fileWatcherFactory.stop()
+    }
+
+    def "reports files changed in tracked directories"() {
+        def trackedDir = testDirectory.createDir("tracked")
+        // Holds the cookie files
+        trackedDir.createDir(".gradle")
+        def existing = trackedDir.file("existing.txt").createFile()
+
+        when:
+        tracker.track(trackedDir)
+
+        then:
+        tracker.trackedLocations.contains(existing)
+        !tracker.trackedLocations.contains(testDirectory.file("untracked"))
+        tracker.takeChangedPaths() as List == []
+
+        when:
+        existing << "change"
+        def created = trackedDir.file("sub/created.txt").createFile()
+
+        then:
+        def changedPaths = tracker.takeChangedPaths() as Set
+        changedPaths.contains(existing.absolutePath)
+        changedPaths.contains(created.parentFile.absolutePath)
+        !changedPaths.any { it.contains(".watch-fs-cookie-") }
+
+        and:
+        tracker.takeChangedPaths() as List == []
+    }
+
+    def "does not report changes outside of tracked directories"() {
+        def trackedDir = testDirectory.createDir("tracked")
+        trackedDir.createDir(".gradle")
+        def untrackedDir = testDirectory.createDir("untracked")
+
+        when:
+        tracker.track(trackedDir)
+        untrackedDir.file("file.txt") << "change"
+
+        then:
+        tracker.takeChangedPaths() as List == []
+    }
+
+    def "changes are unknown after tracking has stopped"() {
+        def trackedDir = testDirectory.createDir("tracked")
+
+        when:
+        tracker.track(trackedDir)
+        tracker.stop()
+
+        then:
+        !tracker.trackedLocations.contains(trackedDir)
+        tracker.takeChangedPaths() == null
+    }
+
+    def "changes are unknown without waiting when the watcher stops without reporting an error"() {
+        def trackedDir = testDirectory.createDir("tracked")
+        trackedDir.createDir(".gradle")
+        def watcher = Mock(FileWatcher)
+        def tracker = new WatchingFileSystemChangeTracker(Stub(FileWatcherFactory) {
+            watch(_, _) >> watcher
+        })
+
+        given:
+        watcher.isRunning() >>> [true, false]
+        tracker.track(trackedDir)
+
+        when:
+        def start = System.currentTimeMillis()
+        def changedPaths = tracker.takeChangedPaths()
+
+        then:
+        changedPaths == null
+        System.currentTimeMillis() - start < 1000
+        !tracker.trackedLocations.contains(trackedDir)
+        1 * watcher.stop()
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.ImmutableSortedSet;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.DirContentSnapshot;
+import org.gradle.api.internal.changedetection.state.FileContentSnapshot;
+import org.gradle.api.internal.changedetection.state.FileHashSnapshot;
+import org.gradle.api.internal.tasks.OriginTaskExecutionMetadata;
+import org.gradle.api.internal.tasks.OutputType;
+import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.hash.DefaultContentHasherFactory;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.id.UniqueId;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+
+/**
+ * Compares unpacking a cached task output directory with many small files on the calling thread and on a pool of writer threads.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class TarTaskOutputPackerUnpackBenchmark {
+    private static final String PROPERTY_NAME = "classes";
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    @Param({"1000", "20000"})
+    int fileCount;
+
+    @Param({"1024", "16384"})
+    int fileSize;
+
+    @Param({"false", "true"})
+    boolean pipelined;
+
+    File tempDir;
+    File targetDir;
+    byte[] archive;
+    DefaultExecutorFactory executorFactory;
+    TarTaskOutputPacker packer;
+    SortedSet<ResolvedTaskOutputFilePropertySpec> targetSpecs;
+    TaskOutputOriginReader readOrigin;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        tempDir = Files.createTempDirectory("unpack-benchmark").toFile();
+        NativeServices.initialize(tempDir);
+        executorFactory = new DefaultExecutorFactory();
+        packer = new TarTaskOutputPacker(FileSystems.getDefault(), new DefaultStreamHasher(new DefaultContentHasherFactory()), new StringInterner(), pipelined ? executorFactory : null);
+
+        File sourceDir = new File(tempDir, "source");
+        Map<String, FileContentSnapshot> snapshots = new LinkedHashMap<String, FileContentSnapshot>();
+        snapshots.put(sourceDir.getAbsolutePath(), DirContentSnapshot.INSTANCE);
+        byte[] content = new byte[fileSize];
+        Random random = new Random(1);
+        for (int i = 0; i < fileCount; i++) {
+            File dir = new File(sourceDir, "dir" + (i / FILES_PER_DIRECTORY));
+            if (!dir.isDirectory()) {
+                FileUtils.forceMkdir(dir);
+                snapshots.put(dir.getAbsolutePath(), DirContentSnapshot.INSTANCE);
+            }
+            File file = new File(dir, "File" + i + ".class");
+            random.nextBytes(content);
+            FileUtils.writeByteArrayToFile(file, content);
+            snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(HashCode.fromInt(i)));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        packer.pack(specFor(sourceDir), Collections.singletonMap(PROPERTY_NAME, snapshots), output, new TaskOutputOriginWriter() {
+            @Override
+            public void execute(OutputStream outputStream) {
+            }
+        });
+        archive = output.toByteArray();
+        FileUtils.forceDelete(sourceDir);
+
+        targetDir = new File(tempDir, "target");
+        targetSpecs = specFor(targetDir);
+        final OriginTaskExecutionMetadata originMetadata = new OriginTaskExecutionMetadata(UniqueId.generate(), 0);
+        readOrigin = new TaskOutputOriginReader() {
+            @Override
+            public OriginTaskExecutionMetadata execute(InputStream inputStream) {
+                return originMetadata;
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        packer.stop();
+        executorFactory.stop();
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws IOException {
+        if (targetDir.exists()) {
+            FileUtils.forceDelete(targetDir);
+        }
+        FileUtils.forceMkdir(targetDir);
+    }
+
+    @Benchmark
+    public TaskOutputPacker.UnpackResult unpack() throws IOException {
+        return packer.unpack(targetSpecs, new ByteArrayInputStream(archive), readOrigin);
+    }
+
+    private static SortedSet<ResolvedTaskOutputFilePropertySpec> specFor(File dir) {
+        return ImmutableSortedSet.of(new ResolvedTaskOutputFilePropertySpec(PROPERTY_NAME, OutputType.DIRECTORY, dir));
+    }
+}
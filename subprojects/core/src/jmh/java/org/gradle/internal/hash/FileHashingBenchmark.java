@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares hashing files by reading them through a buffer and by mapping them into memory, to pick the threshold for mapped hashing.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FileHashingBenchmark {
+    @Param({"1024", "65536", "1048576", "16777216", "268435456", "1073741824"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean mapped;
+
+    @Param({"md5", "murmur3"})
+    String hashFunction;
+
+    File tempDir;
+    File file;
+    FileHasher hasher;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("file-hashing-benchmark").toFile();
+        file = new File(tempDir, "file.bin");
+        byte[] chunk = new byte[1024 * 1024];
+        new Random(1).nextBytes(chunk);
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            for (int remaining = size; remaining > 0; remaining -= chunk.length) {
+                output.write(chunk, 0, Math.min(remaining, chunk.length));
+            }
+        } finally {
+            output.close();
+        }
+        long threshold = mapped ? 0 : -1;
+        hasher = new DefaultFileHasher(new DefaultStreamHasher(new DefaultContentHasherFactory("murmur3".equals(hashFunction)), threshold));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public HashCode hash() {
+        return hasher.hash(file);
+    }
+}
@@ -58,12 +58,14 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private final TaskHistoryRepository taskHistoryRepository;
     private final Instantiator instantiator;
     private final TaskOutputFilesRepository taskOutputFilesRepository;
+    private final TaskCacheKeyCalculator cacheKeyCalculator;
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, Instantiator instantiator,
-                                              TaskOutputFilesRepository taskOutputFilesRepository) {
+                                              TaskOutputFilesRepository taskOutputFilesRepository, TaskCacheKeyCalculator cacheKeyCalculator) {
         this.taskHistoryRepository = taskHistoryRepository;
         this.instantiator = instantiator;
         this.taskOutputFilesRepository = taskOutputFilesRepository;
+        this.cacheKeyCalculator = cacheKeyCalculator;
     }
 
     public TaskArtifactState getStateFor(final TaskInternal task, TaskProperties taskProperties) {
@@ -122,7 +124,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
 
         @Override
         public TaskOutputCachingBuildCacheKey calculateCacheKey() {
-            return TaskCacheKeyCalculator.calculate(task, history.getCurrentExecution());
+            return cacheKeyCalculator.calculate(task, history.getCurrentExecution());
         }
 
         @Override
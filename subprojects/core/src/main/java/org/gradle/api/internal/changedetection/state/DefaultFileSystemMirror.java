@@ -24,26 +24,39 @@ import org.gradle.internal.file.FileHierarchySet;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
- * See {@link DefaultFileSystemSnapshotter} for some more details
+ * See {@link DefaultFileSystemSnapshotter} for some more details.
+ *
+ * State for files that do not live in an append-only cache is retained until something invalidates it: either a task that writes to a location,
+ * or a change to the file system reported by the {@link FileSystemChangeTracker} between builds. When the locations that are changed are not known,
+ * all of this state is discarded.
  */
 public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGenerationListener, RootBuildLifecycleListener {
     // Maps from interned absolute path for a file to known details for the file.
-    private final Map<String, FileSnapshot> files = new ConcurrentHashMap<String, FileSnapshot>();
+    // The maps for files outside of the caches are sorted, so that the state for a whole directory hierarchy can be discarded without scanning all entries.
+    private final NavigableMap<String, FileSnapshot> files = new ConcurrentSkipListMap<String, FileSnapshot>();
     private final Map<String, FileSnapshot> cacheFiles = new ConcurrentHashMap<String, FileSnapshot>();
     // Maps from interned absolute path for a directory to known details for the directory.
-    private final Map<String, FileTreeSnapshot> trees = new ConcurrentHashMap<String, FileTreeSnapshot>();
+    private final NavigableMap<String, FileTreeSnapshot> trees = new ConcurrentSkipListMap<String, FileTreeSnapshot>();
     private final Map<String, FileTreeSnapshot> cacheTrees = new ConcurrentHashMap<String, FileTreeSnapshot>();
     // Maps from interned absolute path to a snapshot
-    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+    private final NavigableMap<String, Snapshot> snapshots = new ConcurrentSkipListMap<String, Snapshot>();
     private final Map<String, Snapshot> cacheSnapshots = new ConcurrentHashMap<String, Snapshot>();
     private final FileHierarchySet cachedDirectories;
+    private final FileSystemChangeTracker changeTracker;
 
     public DefaultFileSystemMirror(List<CachedJarFileStore> fileStores) {
+        this(fileStores, FileSystemChangeTracker.UNTRACKED);
+    }
+
+    public DefaultFileSystemMirror(List<CachedJarFileStore> fileStores, FileSystemChangeTracker changeTracker) {
         FileHierarchySet cachedDirectories = DefaultFileHierarchySet.of();
         for (CachedJarFileStore fileStore : fileStores) {
             for (File file : fileStore.getFileStoreRoots()) {
@@ -51,6 +64,7 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
             }
         }
         this.cachedDirectories = cachedDirectories;
+        this.changeTracker = changeTracker;
     }
 
     @Nullable
@@ -117,24 +131,77 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
     @Override
     public void beforeTaskOutputsGenerated() {
         // When the task outputs are generated, throw away all state for files that do not live in an append-only cache.
-        // This is intentionally very simple, to be improved later
-        files.clear();
-        trees.clear();
-        snapshots.clear();
+        discardNonCachedState();
+    }
+
+    @Override
+    public void beforeTaskOutputsGenerated(Iterable<String> affectedOutputPaths) {
+        invalidate(affectedOutputPaths);
     }
 
     @Override
     public void afterStart() {
+        Iterable<String> changedPaths = changeTracker.takeChangedPaths();
+        if (changedPaths == null) {
+            discardNonCachedState();
+        } else {
+            invalidate(changedPaths);
+        }
     }
 
     @Override
     public void beforeComplete() {
-        // We throw away all state between builds
-        files.clear();
+        // Files in the caches may be removed by cache cleanup between builds, so always throw away their state
         cacheFiles.clear();
-        trees.clear();
         cacheTrees.clear();
-        snapshots.clear();
         cacheSnapshots.clear();
+        // Nothing will tell us about changes to files that are not tracked before the next build, so don't hang on to their state
+        FileHierarchySet trackedLocations = changeTracker.getTrackedLocations();
+        retainTracked(files, trackedLocations);
+        retainTracked(trees, trackedLocations);
+        retainTracked(snapshots, trackedLocations);
+    }
+
+    private static void retainTracked(Map<String, ?> state, FileHierarchySet trackedLocations) {
+        Iterator<String> iterator = state.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!trackedLocations.contains(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void discardNonCachedState() {
+        files.clear();
+        trees.clear();
+        snapshots.clear();
+    }
+
+    private void invalidate(Iterable<String> paths) {
+        for (String path : paths) {
+            if (cachedDirectories.contains(path)) {
+                // Should not happen very often, so keep this simple
+                cacheFiles.clear();
+                cacheTrees.clear();
+                cacheSnapshots.clear();
+            } else {
+                invalidate(files, path);
+                invalidate(trees, path);
+                invalidate(snapshots, path);
+            }
+        }
+    }
+
+    /**
+     * Discards the state for the given path, for all of its ancestors, as the state of a directory includes the state of its descendants, and for all of its descendants.
+     */
+    private static void invalidate(NavigableMap<String, ?> state, String path) {
+        for (File ancestor = new File(path); ancestor != null; ancestor = ancestor.getParentFile()) {
+            state.remove(ancestor.getPath());
+        }
+        // All descendants share the prefix '<path>/', so they sort between '<path>/' and '<path>0' (the character after the separator)
+        String prefix = path.endsWith(File.separator) ? path : path + File.separatorChar;
+        String upperBound = prefix.substring(0, prefix.length() - 1) + (char) (File.separatorChar + 1);
+        state.subMap(prefix, true, upperBound, false).clear();
     }
 }
@@ -35,6 +35,10 @@ import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.caching.internal.BuildCacheHasher;
 import org.gradle.caching.internal.DefaultBuildCacheHasher;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.file.FileMetadataSnapshot;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.hash.FileHasher;
@@ -42,9 +46,14 @@ import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.normalization.internal.InputNormalizationStrategy;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Responsible for snapshotting various aspects of the file system.
@@ -56,8 +65,16 @@ import java.util.List;
  * the same as before (e.g. don't scan the output directory of a task a bunch of times).
  *
  * The implementations are currently intentionally very, very simple, and so there are a number of ways in which they can be made much more efficient. This can happen over time.
+ *
+ * When given an {@link ExecutorFactory}, the files found while walking a directory tree are hashed on a pool with a thread per core, while the walk continues.
+ * The snapshot lists the files in the order of the walk regardless.
  */
-public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
+public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter, Stoppable {
+    /**
+     * The system property to hash the files of directory trees in parallel.
+     */
+    public static final String PARALLEL_HASHING_PROPERTY = "org.gradle.unsafe.parallel-file-hashing";
+
     private final FileHasher hasher;
     private final StringInterner stringInterner;
     private final FileSystem fileSystem;
@@ -67,16 +84,49 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     private final ProducerGuard<String> producingTrees = ProducerGuard.striped();
     private final ProducerGuard<String> producingAllSnapshots = ProducerGuard.striped();
     private final DefaultGenericFileCollectionSnapshotter snapshotter;
+    private final ExecutorFactory executorFactory;
+    private ManagedExecutor hashingExecutor;
 
     public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror) {
+        this(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror, null);
+    }
+
+    /**
+     * @param executorFactory Used to create the pool to hash the files of directory trees on, or null to hash them on the thread that walks the tree.
+     */
+    public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror, @Nullable ExecutorFactory executorFactory) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.fileSystem = fileSystem;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileSystemMirror = fileSystemMirror;
+        this.executorFactory = executorFactory;
         snapshotter = new DefaultGenericFileCollectionSnapshotter(stringInterner, directoryFileTreeFactory, this);
     }
 
+    @Override
+    public void stop() {
+        ManagedExecutor executor;
+        synchronized (this) {
+            executor = hashingExecutor;
+            hashingExecutor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    @Nullable
+    private synchronized ExecutorService getHashingExecutor() {
+        if (executorFactory == null) {
+            return null;
+        }
+        if (hashingExecutor == null) {
+            hashingExecutor = executorFactory.create("File hashing", Runtime.getRuntime().availableProcessors());
+        }
+        return hashingExecutor;
+    }
+
     @Override
     public boolean exists(File file) {
         FileSnapshot snapshot = fileSystemMirror.getFile(file.getAbsolutePath());
@@ -182,14 +232,14 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     @Override
     public List<FileSnapshot> snapshotTree(FileTreeInternal tree) {
         List<FileSnapshot> elements = Lists.newArrayList();
-        tree.visitTreeOrBackingFile(new FileVisitorImpl(elements));
+        // The files of other trees, such as archives, may only be accessible while visiting them
+        tree.visitTreeOrBackingFile(new FileVisitorImpl(elements, null));
         return elements;
     }
 
     private FileTreeSnapshot snapshotAndCache(DirectoryFileTree directoryTree) {
         String path = internPath(directoryTree.getDir());
-        List<FileSnapshot> elements = Lists.newArrayList();
-        directoryTree.visit(new FileVisitorImpl(elements));
+        List<FileSnapshot> elements = visitDirectoryTree(directoryTree);
         ImmutableList<FileSnapshot> descendants = ImmutableList.copyOf(elements);
         DirectoryTreeDetails snapshot = new DirectoryTreeDetails(path, descendants);
         fileSystemMirror.putDirectory(snapshot);
@@ -202,11 +252,18 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
      */
     private FileTreeSnapshot snapshotWithoutCaching(DirectoryFileTree directoryTree) {
         String path = directoryTree.getDir().getAbsolutePath();
-        List<FileSnapshot> elements = Lists.newArrayList();
-        directoryTree.visit(new FileVisitorImpl(elements));
+        List<FileSnapshot> elements = visitDirectoryTree(directoryTree);
         return new DirectoryTreeDetails(path, elements);
     }
 
+    private List<FileSnapshot> visitDirectoryTree(DirectoryFileTree directoryTree) {
+        List<FileSnapshot> elements = Lists.newArrayList();
+        FileVisitorImpl visitor = new FileVisitorImpl(elements, getHashingExecutor());
+        directoryTree.visit(visitor);
+        visitor.awaitHashes();
+        return elements;
+    }
+
     private FileTreeSnapshot filterSnapshot(FileTreeSnapshot snapshot, PatternSet patterns) {
         if (patterns.isEmpty()) {
             return snapshot;
@@ -282,9 +339,12 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
 
     private class FileVisitorImpl implements FileVisitor {
         private final List<FileSnapshot> fileTreeElements;
+        private final ExecutorService hashingExecutor;
+        private final List<PendingHash> pendingHashes = Lists.newArrayList();
 
-        FileVisitorImpl(List<FileSnapshot> fileTreeElements) {
+        FileVisitorImpl(List<FileSnapshot> fileTreeElements, @Nullable ExecutorService hashingExecutor) {
             this.fileTreeElements = fileTreeElements;
+            this.hashingExecutor = hashingExecutor;
         }
 
         @Override
@@ -293,8 +353,48 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
         }
 
         @Override
-        public void visitFile(FileVisitDetails fileDetails) {
-            fileTreeElements.add(new RegularFileSnapshot(internPath(fileDetails.getFile()), fileDetails.getRelativePath(), false, fileSnapshot(fileDetails)));
+        public void visitFile(final FileVisitDetails fileDetails) {
+            String path = internPath(fileDetails.getFile());
+            if (hashingExecutor == null) {
+                fileTreeElements.add(new RegularFileSnapshot(path, fileDetails.getRelativePath(), false, fileSnapshot(fileDetails)));
+                return;
+            }
+            Future<FileHashSnapshot> hash = hashingExecutor.submit(new Callable<FileHashSnapshot>() {
+                @Override
+                public FileHashSnapshot call() {
+                    return fileSnapshot(fileDetails);
+                }
+            });
+            pendingHashes.add(new PendingHash(fileTreeElements.size(), path, fileDetails.getRelativePath(), hash));
+            // Replaced with the snapshot of the file once it has been hashed
+            fileTreeElements.add(null);
+        }
+
+        void awaitHashes() {
+            try {
+                for (PendingHash pendingHash : pendingHashes) {
+                    FileHashSnapshot hash = pendingHash.hash.get();
+                    fileTreeElements.set(pendingHash.index, new RegularFileSnapshot(pendingHash.path, pendingHash.relativePath, false, hash));
+                }
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private static class PendingHash {
+        final int index;
+        final String path;
+        final RelativePath relativePath;
+        final Future<FileHashSnapshot> hash;
+
+        PendingHash(int index, String path, RelativePath relativePath, Future<FileHashSnapshot> hash) {
+            this.index = index;
+            this.path = path;
+            this.relativePath = relativePath;
+            this.hash = hash;
         }
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import net.rubygrapefruit.platform.ThreadSafe;
+import org.gradle.internal.file.DefaultFileHierarchySet;
+import org.gradle.internal.file.FileHierarchySet;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+/**
+ * Keeps track of the files that change outside of Gradle between builds, so that state about unchanged files can be retained by a {@link FileSystemMirror}.
+ */
+@ThreadSafe
+public interface FileSystemChangeTracker {
+    /**
+     * A tracker that does not know about any changes, so that all state is discarded between builds.
+     */
+    FileSystemChangeTracker UNTRACKED = new FileSystemChangeTracker() {
+        @Override
+        public void track(File directory) {
+        }
+
+        @Override
+        public FileHierarchySet getTrackedLocations() {
+            return DefaultFileHierarchySet.of();
+        }
+
+        @Nullable
+        @Override
+        public Iterable<String> takeChangedPaths() {
+            return null;
+        }
+    };
+
+    /**
+     * Starts tracking changes to the given directory and all of its descendants, if this is supported.
+     */
+    void track(File directory);
+
+    /**
+     * Returns the locations in which changes are currently tracked. State for files outside of these locations should not be retained between builds.
+     */
+    FileHierarchySet getTrackedLocations();
+
+    /**
+     * Returns the absolute paths of the files and directories that may have changed since the previous call to this method,
+     * or {@code null} when the changes are unknown and any file may have changed.
+     */
+    @Nullable
+    Iterable<String> takeChangedPaths();
+}
@@ -31,6 +31,8 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
 
     private final ClassLoaderScope parent;
 
+    // Access is synchronized, as the scopes of projects that are configured in parallel share their parent scopes.
+    // A scope only calls into its parent while holding its own lock, never into its children.
     private boolean locked;
 
     private ClassPath export = ClassPath.EMPTY;
@@ -132,13 +134,13 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
     }
 
     @Override
-    public ClassLoader getExportClassLoader() {
+    public synchronized ClassLoader getExportClassLoader() {
         buildEffectiveLoaders();
         return effectiveExportClassLoader;
     }
 
     @Override
-    public ClassLoader getLocalClassLoader() {
+    public synchronized ClassLoader getLocalClassLoader() {
         buildEffectiveLoaders();
         return effectiveLocalClassLoader;
     }
@@ -149,7 +151,7 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
     }
 
     @Override
-    public boolean defines(Class<?> clazz) {
+    public synchronized boolean defines(Class<?> clazz) {
         if (ownLoaders != null) {
             for (ClassLoader ownLoader : ownLoaders) {
                 if (ownLoader.equals(clazz.getClassLoader())) {
@@ -170,7 +172,7 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
     }
 
     @Override
-    public ClassLoaderScope local(ClassPath classPath) {
+    public synchronized ClassLoaderScope local(ClassPath classPath) {
         if (classPath.isEmpty()) {
             return this;
         }
@@ -187,7 +189,7 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
     }
 
     @Override
-    public ClassLoaderScope export(ClassPath classPath) {
+    public synchronized ClassLoaderScope export(ClassPath classPath) {
         if (classPath.isEmpty()) {
             return this;
         }
@@ -203,7 +205,7 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
     }
 
     @Override
-    public ClassLoaderScope export(ClassLoader classLoader) {
+    public synchronized ClassLoaderScope export(ClassLoader classLoader) {
         assertNotLocked();
         if (exportingClassLoader != null) {
             exportingClassLoader.addParent(classLoader);
@@ -224,13 +226,13 @@ public class DefaultClassLoaderScope extends AbstractClassLoaderScope {
     }
 
     @Override
-    public ClassLoaderScope lock() {
+    public synchronized ClassLoaderScope lock() {
         locked = true;
         return this;
     }
 
     @Override
-    public boolean isLocked() {
+    public synchronized boolean isLocked() {
         return locked;
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.initialization.ProjectAccessListener;
+
+/**
+ * Used instead of {@link DefaultProjectAccessListener} when projects are configured in parallel. The target project is evaluated without holding a lock shared by all
+ * projects, as a thread may have to wait for another thread that is configuring the target project, and that thread may in turn access another project.
+ * Cross-project access is recorded by the {@link org.gradle.configuration.project.ParallelProjectEvaluator} when the target project is evaluated.
+ */
+public class ParallelConfigurationProjectAccessListener implements ProjectAccessListener {
+
+    public void beforeRequestingTaskByPath(ProjectInternal targetProject) {
+        evaluateProjectAndDiscoverTasks(targetProject);
+    }
+
+    public void beforeResolvingProjectDependency(ProjectInternal targetProject) {
+        evaluateProjectAndDiscoverTasks(targetProject);
+    }
+
+    private void evaluateProjectAndDiscoverTasks(final ProjectInternal targetProject) {
+        targetProject.evaluate();
+        synchronized (targetProject) {
+            targetProject.getTasks().discoverTasks();
+        }
+    }
+}
@@ -28,19 +28,71 @@ import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.TaskCollection;
 import org.gradle.internal.reflect.Instantiator;
 
+import java.util.Iterator;
+import java.util.Set;
+import java.util.SortedMap;
+
 public class DefaultTaskCollection<T extends Task> extends DefaultNamedDomainObjectSet<T> implements TaskCollection<T> {
     private static final Task.Namer NAMER = new Task.Namer();
 
     protected final ProjectInternal project;
+    private final DefaultTaskCollection<?> parent;
 
     public DefaultTaskCollection(Class<T> type, Instantiator instantiator, ProjectInternal project) {
         super(type, instantiator, NAMER);
         this.project = project;
+        this.parent = null;
     }
 
     public DefaultTaskCollection(DefaultTaskCollection<? super T> collection, CollectionFilter<T> filter, Instantiator instantiator, ProjectInternal project) {
         super(collection, filter, instantiator, NAMER);
         this.project = project;
+        this.parent = collection;
+    }
+
+    /**
+     * Creates the tasks that have been registered but not created yet and that may be of the given type, so that they are visible to queries that look at every task in this collection.
+     */
+    protected void realizeRegisteredTasks(Class<? extends Task> type) {
+        if (parent != null) {
+            parent.realizeRegisteredTasks(type);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        realizeRegisteredTasks(getType());
+        return super.iterator();
+    }
+
+    @Override
+    public void all(Action<? super T> action) {
+        realizeRegisteredTasks(getType());
+        super.all(action);
+    }
+
+    @Override
+    public int size() {
+        realizeRegisteredTasks(getType());
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        realizeRegisteredTasks(getType());
+        return super.isEmpty();
+    }
+
+    @Override
+    public Set<T> findAll(Closure cl) {
+        realizeRegisteredTasks(getType());
+        return super.findAll(cl);
+    }
+
+    @Override
+    public SortedMap<String, T> getAsMap() {
+        realizeRegisteredTasks(getType());
+        return super.getAsMap();
     }
 
     protected <S extends T> DefaultTaskCollection<S> filtered(CollectionFilter<S> filter) {
@@ -16,6 +16,8 @@
 package org.gradle.api.internal.tasks;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import groovy.lang.Closure;
 import org.apache.commons.lang.StringUtils;
@@ -30,7 +32,10 @@ import org.gradle.api.internal.NamedDomainObjectContainerConfigureDelegate;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
+import org.gradle.api.internal.provider.AbstractProvider;
+import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskCollection;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.TaskReference;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.Transformers;
@@ -47,8 +52,11 @@ import org.gradle.model.internal.core.rule.describe.SimpleModelRuleDescriptor;
 import org.gradle.model.internal.type.ModelType;
 import org.gradle.util.ConfigureUtil;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
@@ -58,6 +66,8 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
     private final ITaskFactory taskFactory;
     private final ProjectAccessListener projectAccessListener;
     private final Set<String> placeholders = Sets.newHashSet();
+    // Tasks that have been registered but not created yet, with their registered type
+    private final Map<String, Class<? extends Task>> registeredTasks = Maps.newHashMap();
     private final NamedEntityInstantiator<Task> instantiator;
 
     public DefaultTaskContainer(MutableModelNode modelNode, ProjectInternal project, Instantiator instantiator, ITaskFactory taskFactory, ProjectAccessListener projectAccessListener) {
@@ -89,6 +99,15 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         }
 
         Task existing = findByNameWithoutRules(name);
+        if (existing == null && registeredTasks.containsKey(name)) {
+            // The task has been registered but not created yet
+            if (!replaceExisting) {
+                throw new InvalidUserDataException(String.format(
+                    "Cannot add %s as a task with that name already exists.", task));
+            }
+            registeredTasks.remove(name);
+            modelNode.removeLink(name);
+        }
         if (existing != null) {
             if (replaceExisting) {
                 remove(existing);
@@ -157,6 +176,39 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         return addTask(task, true);
     }
 
+    @Override
+    public <T extends Task> TaskProvider<T> register(String name, Class<T> type, Action<? super T> configurationAction) throws InvalidUserDataException {
+        TaskProvider<T> provider = register(name, type);
+        provider.configure(configurationAction);
+        return provider;
+    }
+
+    @Override
+    public TaskProvider<Task> register(String name, Action<? super Task> configurationAction) throws InvalidUserDataException {
+        return register(name, Task.class, configurationAction);
+    }
+
+    @Override
+    public <T extends Task> TaskProvider<T> register(String name, Class<T> type) throws InvalidUserDataException {
+        if (registeredTasks.containsKey(name) || findByNameWithoutRules(name) != null || (modelNode.hasLink(name) && !placeholders.contains(name))) {
+            throw new InvalidUserDataException(String.format("Cannot register task '%s' as a task with that name already exists.", name));
+        }
+        if (placeholders.remove(name)) {
+            modelNode.removeLink(name);
+        }
+        RegisteredTaskProvider<T> provider = new RegisteredTaskProvider<T>(name, type);
+        ModelType<T> taskModelType = ModelType.of(type);
+        modelNode.addLink(
+            ModelRegistrations.of(MODEL_PATH.child(name))
+                .action(ModelActionRole.Create, new RegisteredTaskCreator<T>(provider, taskModelType))
+                .withProjection(new UnmanagedModelProjection<T>(taskModelType))
+                .descriptor(new SimpleModelRuleDescriptor("tasks.register(" + name + ")"))
+                .build()
+        );
+        registeredTasks.put(name, type);
+        return provider;
+    }
+
     public Task findByPath(String path) {
         if (Strings.isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
@@ -260,6 +312,36 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         return super.findByNameWithoutRules(name);
     }
 
+    @Override
+    protected void realizeRegisteredTasks(Class<? extends Task> type) {
+        if (registeredTasks.isEmpty()) {
+            return;
+        }
+        // Copy, as creating a task can register or create other tasks
+        for (Map.Entry<String, Class<? extends Task>> entry : Lists.newArrayList(registeredTasks.entrySet())) {
+            // The created task is an instance of the registered type, so it can only match when the types are related
+            Class<? extends Task> registeredType = entry.getValue();
+            if (type.isAssignableFrom(registeredType) || registeredType.isAssignableFrom(type)) {
+                findByName(entry.getKey());
+            }
+        }
+    }
+
+    @Override
+    public void whenTaskCreated(final String name, Action<? super Task> action) {
+        Task task = findByNameWithoutRules(name);
+        if (task != null) {
+            action.execute(task);
+            return;
+        }
+        matching(new Spec<Task>() {
+            @Override
+            public boolean isSatisfiedBy(Task task) {
+                return task.getName().equals(name);
+            }
+        }).whenTaskAdded(action);
+    }
+
     private Task realizeTask(ModelPath taskPath, ModelNode.State minState) {
         return project.getModelRegistry().atStateOrLater(taskPath, ModelType.of(Task.class), minState);
     }
@@ -328,6 +410,77 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         }
     }
 
+    private class RegisteredTaskProvider<T extends Task> extends AbstractProvider<T> implements TaskProvider<T> {
+        private final String name;
+        private final Class<T> type;
+        private List<Action<? super T>> pendingActions = new ArrayList<Action<? super T>>();
+
+        RegisteredTaskProvider(String name, Class<T> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        @Override
+        public Class<T> getType() {
+            return type;
+        }
+
+        @Override
+        public void configure(Action<? super T> action) {
+            if (pendingActions != null) {
+                pendingActions.add(action);
+            } else {
+                action.execute(get());
+            }
+        }
+
+        @Override
+        public T getOrNull() {
+            Task task = findByName(name);
+            return task == null ? null : type.cast(task);
+        }
+
+        void created(T task) {
+            List<Action<? super T>> actions = pendingActions;
+            pendingActions = null;
+            for (Action<? super T> action : actions) {
+                action.execute(task);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "provider(task '" + name + "', " + type + ")";
+        }
+    }
+
+    private static class RegisteredTaskCreator<T extends Task> implements Action<MutableModelNode> {
+        private final RegisteredTaskProvider<T> provider;
+        private final ModelType<T> taskModelType;
+
+        RegisteredTaskCreator(RegisteredTaskProvider<T> provider, ModelType<T> taskModelType) {
+            this.provider = provider;
+            this.taskModelType = taskModelType;
+        }
+
+        @Override
+        public void execute(MutableModelNode mutableModelNode) {
+            DefaultTaskContainer taskContainer = mutableModelNode.getParent().getPrivateData(ModelType.of(DefaultTaskContainer.class));
+            // Remove first, so that actions run when the task is created do not try to create it again
+            taskContainer.registeredTasks.remove(provider.getName());
+            T task = taskContainer.instantiator.create(provider.getName(), provider.getType());
+            taskContainer.add(task);
+            mutableModelNode.setPrivateData(taskModelType, task);
+            provider.created(task);
+        }
+    }
+
     @Override
     public <S extends Task> TaskCollection<S> withType(Class<S> type) {
         return new RealizableTaskCollection<S>(type, super.withType(type), modelNode);
@@ -34,6 +34,12 @@ public interface TaskContainerInternal extends TaskContainer, TaskResolver, Poly
 
     <T extends TaskInternal> void addPlaceholderAction(String placeholderName, Class<T> type, Action<? super T> configure);
 
+    /**
+     * Executes the given action against the task with the given name when it is created, or straight away if it has been created already.
+     * Unlike {@link #getByName(String)}, this does not create a task that has been registered.
+     */
+    void whenTaskCreated(String name, Action<? super Task> action);
+
     /**
      * Force the task graph to come into existence.
      *
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.execution;
 import com.google.common.collect.Lists;
 import org.gradle.api.GradleException;
 import org.gradle.api.execution.TaskActionListener;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.tasks.ContextAwareTaskAction;
 import org.gradle.api.internal.tasks.TaskExecuter;
@@ -41,7 +42,9 @@ import org.gradle.internal.progress.BuildOperationState;
 import org.gradle.internal.scopeids.id.BuildInvocationScopeId;
 import org.gradle.internal.work.AsyncWorkTracker;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -66,7 +69,7 @@ public class ExecuteActionsTaskExecuter implements TaskExecuter {
     public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
         listener.beforeActions(task);
         if (!task.getTaskActions().isEmpty()) {
-            outputsGenerationListener.beforeTaskOutputsGenerated();
+            notifyBeforeTaskOutputsGenerated(context.getTaskProperties());
         }
         state.setExecuting(true);
         try {
@@ -85,6 +88,21 @@ public class ExecuteActionsTaskExecuter implements TaskExecuter {
         }
     }
 
+    private void notifyBeforeTaskOutputsGenerated(TaskProperties taskProperties) {
+        if (!taskProperties.hasDeclaredOutputs()) {
+            // The task could write anywhere
+            outputsGenerationListener.beforeTaskOutputsGenerated();
+            return;
+        }
+        List<String> affectedOutputPaths = new ArrayList<String>();
+        for (FileCollection files : Arrays.asList(taskProperties.getOutputFiles(), taskProperties.getLocalStateFiles(), taskProperties.getDestroyableFiles())) {
+            for (File file : files) {
+                affectedOutputPaths.add(file.getAbsolutePath());
+            }
+        }
+        outputsGenerationListener.beforeTaskOutputsGenerated(affectedOutputPaths);
+    }
+
     private GradleException executeActions(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
         LOGGER.debug("Executing actions for {}.", task);
         final List<ContextAwareTaskAction> actions = new ArrayList<ContextAwareTaskAction>(task.getTaskActions());
@@ -20,6 +20,15 @@ public interface TaskOutputsGenerationListener {
     /**
      * Invoked when the outputs for a task are about to be generated.
      * This is for example just before the task actions are executed or the outputs are loaded from the cache.
+     *
+     * Called when the locations that the task may write to are not known, so any file may change.
      */
     void beforeTaskOutputsGenerated();
+
+    /**
+     * Invoked when the outputs for a task are about to be generated, and the task only writes to the given locations.
+     *
+     * @param affectedOutputPaths the absolute paths of the files and directories that may be changed by the task.
+     */
+    void beforeTaskOutputsGenerated(Iterable<String> affectedOutputPaths);
 }
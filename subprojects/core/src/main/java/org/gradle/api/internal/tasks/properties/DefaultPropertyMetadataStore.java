@@ -19,9 +19,6 @@ package org.gradle.api.internal.tasks.properties;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
@@ -32,6 +29,7 @@ import com.google.common.collect.Sets;
 import groovy.lang.GroovyObject;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.Task;
+import org.gradle.api.Transformer;
 import org.gradle.api.internal.AbstractTask;
 import org.gradle.api.internal.ConventionTask;
 import org.gradle.api.internal.DynamicObjectAware;
@@ -58,6 +56,8 @@ import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.options.OptionValues;
+import org.gradle.cache.internal.CrossBuildInMemoryCache;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.internal.reflect.GroovyMethods;
 import org.gradle.internal.reflect.PropertyAccessorType;
 import org.gradle.internal.reflect.Types;
@@ -78,6 +78,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Extracts and caches the annotated properties of task and nested bean types.
+ *
+ * The metadata is kept for the lifetime of the daemon, so that a type is inspected only once rather than once per build.
+ * Types from class loaders that are no longer in use are discarded.
+ */
 public class DefaultPropertyMetadataStore implements PropertyMetadataStore {
     // Avoid reflecting on classes we know we don't need to look at
     @SuppressWarnings("RedundantTypeArguments")
@@ -107,16 +113,16 @@ public class DefaultPropertyMetadataStore implements PropertyMetadataStore {
     private final Map<Class<? extends Annotation>, PropertyAnnotationHandler> annotationHandlers;
     private final Multimap<Class<? extends Annotation>, Class<? extends Annotation>> annotationOverrides;
     private final Set<Class<? extends Annotation>> relevantAnnotationTypes;
-    private final LoadingCache<Class<?>, TypeMetadata> cache = CacheBuilder.newBuilder()
-        .weakKeys()
-        .build(new CacheLoader<Class<?>, TypeMetadata>() {
-            @Override
-            public TypeMetadata load(@Nonnull Class<?> type) throws Exception {
-                return createTypeMetadata(type);
-            }
-        });
+    private final CrossBuildInMemoryCache<Class<?>, TypeMetadata> cache;
+    private final Transformer<TypeMetadata, Class<?>> typeMetadataFactory = new Transformer<TypeMetadata, Class<?>>() {
+        @Override
+        public TypeMetadata transform(Class<?> type) {
+            return createTypeMetadata(type);
+        }
+    };
 
-    public DefaultPropertyMetadataStore(Iterable<? extends PropertyAnnotationHandler> customAnnotationHandlers) {
+    public DefaultPropertyMetadataStore(Iterable<? extends PropertyAnnotationHandler> customAnnotationHandlers, CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.cache = cacheFactory.newClassCache();
         Iterable<PropertyAnnotationHandler> allAnnotationHandlers = Iterables.concat(HANDLERS, customAnnotationHandlers);
         Map<Class<? extends Annotation>, PropertyAnnotationHandler> annotationsHandlers = Maps.uniqueIndex(allAnnotationHandlers, new Function<PropertyAnnotationHandler, Class<? extends Annotation>>() {
             @Override
@@ -150,7 +156,7 @@ public class DefaultPropertyMetadataStore implements PropertyMetadataStore {
 
     @Override
     public <T> TypeMetadata getTypeMetadata(Class<T> type) {
-        return cache.getUnchecked(type);
+        return cache.get(type, typeMetadataFactory);
     }
 
     private <T> TypeMetadata createTypeMetadata(Class<T> type) {
@@ -364,6 +370,8 @@ public class DefaultPropertyMetadataStore implements PropertyMetadataStore {
             this.propertyTypeAnnotations = propertyTypeAnnotations;
             this.fieldName = fieldName;
             this.method = method;
+            // Do the access check once here rather than each time the property is visited
+            method.setAccessible(true);
         }
 
         @Override
@@ -152,7 +152,6 @@ public class DefaultPropertyWalker implements PropertyWalker {
             this.annotations = ImmutableList.copyOf(annotations);
             this.bean = bean;
             this.method = method;
-            method.setAccessible(true);
         }
 
         @Override
@@ -31,7 +31,9 @@ import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.PathSensitive;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.internal.Cast;
+import org.gradle.internal.event.DefaultListenerManager;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -59,7 +61,7 @@ public class PropertyValidationAccess {
         DefaultTaskClassInfoStore taskClassInfoStore = new DefaultTaskClassInfoStore();
         PropertyMetadataStore metadataStore = new DefaultPropertyMetadataStore(ImmutableList.of(
             new ClasspathPropertyAnnotationHandler(), new CompileClasspathPropertyAnnotationHandler()
-        ));
+        ), new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()));
         Queue<TypeNode> queue = new ArrayDeque<TypeNode>();
         queue.add(new TypeNode(null, TypeToken.of(topLevelBean)));
         boolean cacheable = taskClassInfoStore.getTaskClassInfo(Cast.<Class<? extends Task>>uncheckedCast(topLevelBean)).isCacheable();
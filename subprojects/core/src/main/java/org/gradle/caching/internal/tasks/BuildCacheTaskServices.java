@@ -24,15 +24,19 @@ import org.gradle.api.internal.InstantiatorFactory;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.FileSystemMirror;
 import org.gradle.api.logging.configuration.ShowStacktrace;
+import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.caching.internal.controller.BuildCacheControllerFactory;
 import org.gradle.caching.internal.controller.BuildCacheControllerFactory.BuildCacheMode;
 import org.gradle.caching.internal.controller.BuildCacheControllerFactory.RemoteAccessMode;
 import org.gradle.caching.internal.controller.RootBuildCacheControllerRef;
+import org.gradle.caching.internal.controller.service.SpoolingBuildCacheServiceHandle;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginFactory;
 import org.gradle.initialization.buildsrc.BuildSourceBuilder;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -55,9 +59,19 @@ import static org.gradle.caching.internal.controller.BuildCacheControllerFactory
 public class BuildCacheTaskServices {
 
     private static final Path ROOT_BUILD_SRC_PATH = Path.path(":" + BuildSourceBuilder.BUILD_SRC);
+    private static final String EXPLODED_BUILD_CACHE_KEY = "build-cache-exploded-" + TaskOutputPacker.CACHE_ENTRY_FORMAT;
 
-    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner) {
-        return new GZipTaskOutputPacker(new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner));
+    TaskOutputCompression createTaskOutputCompression() {
+        return TaskOutputCompression.fromSystemProperty();
+    }
+
+    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner, ExecutorFactory executorFactory, TaskOutputCompression compression) {
+        TaskOutputPacker tarPacker = new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner, executorFactory);
+        return new CompressingTaskOutputPacker(tarPacker, compression);
+    }
+
+    TaskCacheKeyCalculator createTaskCacheKeyCalculator(TaskOutputCompression compression) {
+        return new TaskCacheKeyCalculator(compression);
     }
 
     TaskOutputOriginFactory createTaskOutputOriginFactory(
@@ -74,9 +88,17 @@ public class BuildCacheTaskServices {
         TaskOutputPacker taskOutputPacker,
         TaskOutputOriginFactory taskOutputOriginFactory,
         FileSystemMirror fileSystemMirror,
-        StringInterner stringInterner
+        StringInterner stringInterner,
+        CacheScopeMapping cacheScopeMapping,
+        FileSystem fileSystem,
+        StreamHasher streamHasher
     ) {
-        return new TaskOutputCacheCommandFactory(taskOutputPacker, taskOutputOriginFactory, fileSystemMirror, stringInterner);
+        ExplodedTaskOutputStore explodedStore = null;
+        if (Boolean.getBoolean(ExplodedTaskOutputStore.EXPLODED_PROPERTY)) {
+            File baseDir = cacheScopeMapping.getBaseDirectory(null, EXPLODED_BUILD_CACHE_KEY, VersionStrategy.SharedCache);
+            explodedStore = new ExplodedTaskOutputStore(baseDir, taskOutputPacker, fileSystem, streamHasher, stringInterner);
+        }
+        return new TaskOutputCacheCommandFactory(taskOutputPacker, taskOutputOriginFactory, fileSystemMirror, stringInterner, explodedStore);
     }
 
     BuildCacheController createBuildCacheController(
@@ -132,7 +154,9 @@ public class BuildCacheTaskServices {
             buildCacheMode,
             remoteAccessMode,
             logStackTraces,
-            instantiatorFactory.inject(serviceRegistry)
+            instantiatorFactory.inject(serviceRegistry),
+            serviceRegistry.get(ExecutorFactory.class),
+            Integer.getInteger(SpoolingBuildCacheServiceHandle.REMOTE_STORE_CONCURRENCY_PROPERTY, 0)
         );
 
         // Stop the controller early so that any logging emitted during stopping is visible.
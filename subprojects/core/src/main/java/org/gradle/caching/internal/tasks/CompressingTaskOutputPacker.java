@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.internal.changedetection.state.FileContentSnapshot;
+import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Adds compression to the packed task output.
+ *
+ * <p>Entries compressed with {@link TaskOutputCompression#GZIP} are plain GZIP streams, as written by older versions of Gradle.
+ * Entries using any other compression start with a header that identifies the version of the entry format and the compression used.
+ * Entries of either kind can be unpacked regardless of the compression configured for packing.</p>
+ *
+ * <p>Older versions of Gradle cannot read entries with a header, so those entries are stored under a different cache key, see {@link #getEntryFormat(TaskOutputCompression)}.
+ * The key does not depend on the compression, as the header tells readers how to decode the entry, so builds using different compressions share entries.</p>
+ */
+public class CompressingTaskOutputPacker implements TaskOutputPacker, Stoppable {
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+    private static final byte[] HEADER_MAGIC = {'G', 'B', 'C', 'E'};
+    private static final int HEADER_VERSION = 1;
+
+    private final TaskOutputPacker delegate;
+    private final TaskOutputCompression compression;
+
+    public CompressingTaskOutputPacker(TaskOutputPacker delegate) {
+        this(delegate, TaskOutputCompression.GZIP);
+    }
+
+    public CompressingTaskOutputPacker(TaskOutputPacker delegate, TaskOutputCompression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    /**
+     * Returns the identifier of the format of entries written with the given compression, to be included in the cache key.
+     * Returns {@code null} for {@link TaskOutputCompression#GZIP}, whose entries use the same format and keys as older versions of Gradle.
+     */
+    @Nullable
+    public static String getEntryFormat(TaskOutputCompression compression) {
+        if (compression == TaskOutputCompression.GZIP) {
+            return null;
+        }
+        return "v" + HEADER_VERSION;
+    }
+
+    @Override
+    public PackResult pack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputFiles, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException {
+        OutputStream compressedOutput;
+        try {
+            if (compression != TaskOutputCompression.GZIP) {
+                output.write(HEADER_MAGIC);
+                output.write(HEADER_VERSION);
+                output.write(compression.getId());
+            }
+            compressedOutput = compression.compress(output);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(output);
+            throw e;
+        }
+        try {
+            return delegate.pack(propertySpecs, outputFiles, compressedOutput, writeOrigin);
+        } finally {
+            IOUtils.closeQuietly(compressedOutput);
+        }
+    }
+
+    @Override
+    public UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException {
+        InputStream decompressedInput = readHeader(input);
+        try {
+            return delegate.unpack(propertySpecs, decompressedInput, readOrigin);
+        } finally {
+            IOUtils.closeQuietly(decompressedInput);
+        }
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(delegate).stop();
+    }
+
+    private static InputStream readHeader(InputStream input) throws IOException {
+        PushbackInputStream pushbackInput = new PushbackInputStream(input, GZIP_MAGIC.length);
+        byte[] magic = new byte[HEADER_MAGIC.length];
+        readFully(pushbackInput, magic, 0, GZIP_MAGIC.length);
+        if (magic[0] == GZIP_MAGIC[0] && magic[1] == GZIP_MAGIC[1]) {
+            // Entry without a header
+            pushbackInput.unread(magic, 0, GZIP_MAGIC.length);
+            return TaskOutputCompression.GZIP.decompress(pushbackInput);
+        }
+        readFully(pushbackInput, magic, GZIP_MAGIC.length, HEADER_MAGIC.length - GZIP_MAGIC.length);
+        if (!Arrays.equals(magic, HEADER_MAGIC)) {
+            throw new IllegalStateException("Cached result format error, not a build cache entry.");
+        }
+        int version = pushbackInput.read();
+        if (version != HEADER_VERSION) {
+            throw new IllegalStateException("Cached result format error, unsupported entry format version: " + version);
+        }
+        int compressionId = pushbackInput.read();
+        return TaskOutputCompression.forId(compressionId).decompress(pushbackInput);
+    }
+
+    private static void readFully(InputStream input, byte[] buffer, int offset, int length) throws IOException {
+        if (IOUtils.read(input, buffer, offset, length) != length) {
+            throw new EOFException("Cached result format error, entry is truncated.");
+        }
+    }
+}
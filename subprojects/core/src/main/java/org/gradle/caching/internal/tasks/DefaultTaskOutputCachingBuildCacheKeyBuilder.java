@@ -119,6 +119,12 @@ public class DefaultTaskOutputCachingBuildCacheKeyBuilder implements TaskOutputC
         log("outputPropertyName", propertyName);
     }
 
+    @Override
+    public void appendEntryFormat(String entryFormat) {
+        hasher.putString(entryFormat);
+        log("entryFormat", entryFormat);
+    }
+
     private static void log(String name, @Nullable Object value) {
         LOGGER.info("Appending {} to build cache key: {}", name, value);
     }
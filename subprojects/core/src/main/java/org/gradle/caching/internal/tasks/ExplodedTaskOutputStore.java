@@ -0,0 +1,447 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.DirectoryFileSnapshot;
+import org.gradle.api.internal.changedetection.state.FileHashSnapshot;
+import org.gradle.api.internal.changedetection.state.FileSnapshot;
+import org.gradle.api.internal.changedetection.state.RegularFileSnapshot;
+import org.gradle.api.internal.tasks.OriginTaskExecutionMetadata;
+import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.gradle.caching.internal.tasks.TaskOutputPackerUtils.ensureDirectoryForProperty;
+import static org.gradle.caching.internal.tasks.TaskOutputPackerUtils.makeDirectory;
+
+/**
+ * Keeps the outputs of build cache entries that have been unpacked on this machine exploded on disk, so that loading an entry again
+ * creates the outputs as hard links to the exploded files instead of unpacking the archive.
+ *
+ * <p>An entry is added after it has been unpacked from its archive, by hard linking the unpacked outputs into the store, so adding an entry copies no data.
+ * Entries are not added when the outputs are on a different file system than the store. Outputs are created by hard linking the exploded files,
+ * or by copying them when that is not possible.</p>
+ *
+ * <p>An output that is a hard link shares its content with the exploded file, so a task that modifies the output in place modifies the exploded file too.
+ * The content hash of each file is therefore recorded when the entry is added, and each output is hashed again after it has been created from the entry.
+ * An entry with a file whose content does not match is discarded and the outputs are unpacked from its archive again. The length and modification time
+ * of each file are recorded as well, so that most modified entries are discarded before any outputs are created from them.</p>
+ *
+ * <p>Entries that have not been used for {@value #MAX_UNUSED_DAYS} days are removed.</p>
+ */
+public class ExplodedTaskOutputStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExplodedTaskOutputStore.class);
+
+    /**
+     * The system property to enable keeping build cache entries exploded on disk.
+     */
+    public static final String EXPLODED_PROPERTY = "org.gradle.unsafe.build-cache.exploded";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_UNUSED_DAYS = 7;
+    private static final String MANIFEST_FILE = "manifest.bin";
+    private static final String ORIGIN_FILE = "origin.properties";
+    private static final String FILES_DIR = "files";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File baseDir;
+    private final TaskOutputPacker packer;
+    private final FileSystem fileSystem;
+    private final StreamHasher streamHasher;
+    private final StringInterner stringInterner;
+    private final AtomicBoolean cleanedUp = new AtomicBoolean();
+
+    public ExplodedTaskOutputStore(File baseDir, TaskOutputPacker packer, FileSystem fileSystem, StreamHasher streamHasher, StringInterner stringInterner) {
+        this.baseDir = baseDir;
+        this.packer = packer;
+        this.fileSystem = fileSystem;
+        this.streamHasher = streamHasher;
+        this.stringInterner = stringInterner;
+    }
+
+    /**
+     * Creates the outputs from the exploded entry for the given key when there is one, and unpacks them from the given archive otherwise.
+     */
+    public TaskOutputPacker.UnpackResult unpack(BuildCacheKey key, SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException {
+        File entryDir = new File(baseDir, key.getHashCode());
+        TaskOutputPacker.UnpackResult result = load(entryDir, propertySpecs, readOrigin);
+        if (result != null) {
+            LOGGER.debug("Linked outputs from exploded build cache entry {}.", key);
+            return result;
+        }
+        OriginCapturingReader capturingReader = new OriginCapturingReader(readOrigin);
+        result = packer.unpack(propertySpecs, input, capturingReader);
+        store(key, entryDir, propertySpecs, result.getSnapshots(), capturingReader.origin);
+        return result;
+    }
+
+    @Nullable
+    private TaskOutputPacker.UnpackResult load(File entryDir, SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, TaskOutputOriginReader readOrigin) {
+        File manifestFile = new File(entryDir, MANIFEST_FILE);
+        if (!manifestFile.isFile()) {
+            // Entries are moved into place complete with their manifest, so this is what is left of a discarded entry
+            if (entryDir.exists()) {
+                discard(entryDir);
+            }
+            return null;
+        }
+        List<PropertyEntry> properties;
+        OriginTaskExecutionMetadata originMetadata;
+        try {
+            properties = readManifest(manifestFile);
+            if (!matches(properties, propertySpecs) || !isUnchanged(entryDir, properties)) {
+                LOGGER.info("Discarding exploded build cache entry {} as it has been modified.", entryDir);
+                discard(entryDir);
+                return null;
+            }
+            originMetadata = readOrigin(new File(entryDir, ORIGIN_FILE), readOrigin);
+        } catch (Exception e) {
+            LOGGER.info("Discarding exploded build cache entry {} as it cannot be read.", entryDir, e);
+            discard(entryDir);
+            return null;
+        }
+        // Mark as recently used
+        //noinspection ResultOfMethodCallIgnored
+        entryDir.setLastModified(System.currentTimeMillis());
+
+        try {
+            ImmutableListMultimap.Builder<String, FileSnapshot> snapshots = ImmutableListMultimap.builder();
+            long entries = 1;
+            Iterator<PropertyEntry> propertyEntries = properties.iterator();
+            int index = 0;
+            for (ResolvedTaskOutputFilePropertySpec propertySpec : propertySpecs) {
+                PropertyEntry property = propertyEntries.next();
+                entries += Math.max(1, property.files.size());
+                if (!materialize(propertySpec, property, new File(entryDir, FILES_DIR + "/" + index++), snapshots)) {
+                    LOGGER.info("Discarding exploded build cache entry {} as it has been modified.", entryDir);
+                    discard(entryDir);
+                    return null;
+                }
+            }
+            return new TaskOutputPacker.UnpackResult(originMetadata, entries, snapshots.build());
+        } catch (IOException e) {
+            // Another process may have discarded the entry, fall back to the archive which recreates the outputs
+            LOGGER.info("Could not create outputs from exploded build cache entry {}.", entryDir, e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the outputs of the given property from the exploded files, and returns whether all of them have the content recorded in the manifest.
+     */
+    private boolean materialize(ResolvedTaskOutputFilePropertySpec propertySpec, PropertyEntry property, File propertyDir, ImmutableListMultimap.Builder<String, FileSnapshot> snapshots) throws IOException {
+        File propertyRoot = propertySpec.getOutputFile();
+        if (propertyRoot == null) {
+            return true;
+        }
+        if (property.missing) {
+            if (!makeDirectory(propertyRoot.getParentFile())) {
+                // Make sure output is removed if it exists already
+                if (propertyRoot.exists()) {
+                    GFileUtils.forceDelete(propertyRoot);
+                }
+            }
+            return true;
+        }
+        ensureDirectoryForProperty(propertySpec.getOutputType(), propertyRoot);
+        for (FileEntry file : property.files) {
+            boolean root = file.path.isEmpty();
+            File outputFile = root ? propertyRoot : new File(propertyRoot, file.path);
+            String internedPath = stringInterner.intern(outputFile.getAbsolutePath());
+            RelativePath relativePath = root ? RelativePath.parse(!file.directory, outputFile.getName()) : RelativePath.parse(!file.directory, file.path);
+            FileSnapshot snapshot;
+            if (file.directory) {
+                GFileUtils.mkdirs(outputFile);
+                fileSystem.chmod(outputFile, file.mode);
+                snapshot = new DirectoryFileSnapshot(internedPath, relativePath, root);
+            } else {
+                File explodedFile = root ? propertyDir : new File(propertyDir, file.path);
+                GFileUtils.mkdirs(outputFile.getParentFile());
+                link(explodedFile, outputFile);
+                // The output may share its content with the exploded file, so check the content that the task will actually see
+                if (!file.hash.equals(hash(outputFile))) {
+                    return false;
+                }
+                snapshot = new RegularFileSnapshot(internedPath, relativePath, root, new FileHashSnapshot(file.hash, outputFile.lastModified()));
+            }
+            snapshots.put(property.name, snapshot);
+        }
+        return true;
+    }
+
+    private HashCode hash(File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            return streamHasher.hash(input);
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    private static void link(File explodedFile, File outputFile) throws IOException {
+        Files.deleteIfExists(outputFile.toPath());
+        try {
+            Files.createLink(outputFile.toPath(), explodedFile.toPath());
+        } catch (IOException e) {
+            Files.copy(explodedFile.toPath(), outputFile.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        } catch (UnsupportedOperationException e) {
+            Files.copy(explodedFile.toPath(), outputFile.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private void store(BuildCacheKey key, File entryDir, SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, ImmutableListMultimap<String, FileSnapshot> snapshots, @Nullable byte[] origin) {
+        if (origin == null || entryDir.exists()) {
+            return;
+        }
+        if (cleanedUp.compareAndSet(false, true)) {
+            removeUnusedEntries();
+        }
+        File tempDir = new File(baseDir, key.getHashCode() + "-" + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            List<PropertyEntry> properties = Lists.newArrayListWithCapacity(propertySpecs.size());
+            int index = 0;
+            for (ResolvedTaskOutputFilePropertySpec propertySpec : propertySpecs) {
+                String propertyName = propertySpec.getPropertyName();
+                properties.add(explode(propertyName, snapshots.get(propertyName), new File(tempDir, FILES_DIR + "/" + index++)));
+            }
+            Files.write(new File(tempDir, ORIGIN_FILE).toPath(), origin);
+            writeManifest(new File(tempDir, MANIFEST_FILE), properties);
+            Files.move(tempDir.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            // Most likely the outputs are on another file system, or another process has stored the same entry
+            LOGGER.debug("Could not keep exploded build cache entry {}.", key, e);
+        } finally {
+            if (tempDir.exists()) {
+                GFileUtils.deleteQuietly(tempDir);
+            }
+        }
+    }
+
+    private PropertyEntry explode(String propertyName, List<FileSnapshot> snapshots, File propertyDir) throws IOException {
+        List<FileEntry> files = Lists.newArrayListWithCapacity(snapshots.size());
+        for (FileSnapshot snapshot : snapshots) {
+            String path = snapshot.isRoot() ? "" : snapshot.getRelativePath().getPathString();
+            File outputFile = new File(snapshot.getPath());
+            if (snapshot.getType() == FileType.Directory) {
+                files.add(new FileEntry(path, true, fileSystem.getUnixMode(outputFile), null, 0, 0));
+            } else {
+                File explodedFile = path.isEmpty() ? propertyDir : new File(propertyDir, path);
+                GFileUtils.mkdirs(explodedFile.getParentFile());
+                Files.createLink(explodedFile.toPath(), outputFile.toPath());
+                files.add(new FileEntry(path, false, 0, snapshot.getContent().getContentMd5(), explodedFile.length(), explodedFile.lastModified()));
+            }
+        }
+        return new PropertyEntry(propertyName, snapshots.isEmpty(), files);
+    }
+
+    private void removeUnusedEntries() {
+        File[] entryDirs = baseDir.listFiles();
+        if (entryDirs == null) {
+            return;
+        }
+        long minimumTimestamp = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+        for (File entryDir : entryDirs) {
+            if (entryDir.lastModified() < minimumTimestamp) {
+                discard(entryDir);
+            }
+        }
+    }
+
+    private static void discard(File entryDir) {
+        // Only removes the links held by the store, outputs created from the entry are kept
+        GFileUtils.deleteQuietly(entryDir);
+    }
+
+    private static boolean matches(List<PropertyEntry> properties, SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs) {
+        if (properties.size() != propertySpecs.size()) {
+            return false;
+        }
+        Iterator<PropertyEntry> propertyEntries = properties.iterator();
+        for (ResolvedTaskOutputFilePropertySpec propertySpec : propertySpecs) {
+            if (!propertySpec.getPropertyName().equals(propertyEntries.next().name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUnchanged(File entryDir, List<PropertyEntry> properties) {
+        for (int index = 0; index < properties.size(); index++) {
+            File propertyDir = new File(entryDir, FILES_DIR + "/" + index);
+            for (FileEntry file : properties.get(index).files) {
+                if (file.directory) {
+                    continue;
+                }
+                File explodedFile = file.path.isEmpty() ? propertyDir : new File(propertyDir, file.path);
+                if (explodedFile.length() != file.length || explodedFile.lastModified() != file.lastModified) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static OriginTaskExecutionMetadata readOrigin(File originFile, TaskOutputOriginReader readOrigin) throws IOException {
+        InputStream input = new FileInputStream(originFile);
+        try {
+            return readOrigin.execute(input);
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    private static void writeManifest(File manifestFile, List<PropertyEntry> properties) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(manifestFile)));
+        try {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(properties.size());
+            for (PropertyEntry property : properties) {
+                output.writeUTF(property.name);
+                output.writeBoolean(property.missing);
+                output.writeInt(property.files.size());
+                for (FileEntry file : property.files) {
+                    output.writeUTF(file.path);
+                    output.writeBoolean(file.directory);
+                    if (file.directory) {
+                        output.writeInt(file.mode);
+                    } else {
+                        output.writeUTF(file.hash.toString());
+                        output.writeLong(file.length);
+                        output.writeLong(file.lastModified);
+                    }
+                }
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    private static List<PropertyEntry> readManifest(File manifestFile) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)));
+        try {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported exploded build cache entry format.");
+            }
+            int propertyCount = input.readInt();
+            List<PropertyEntry> properties = Lists.newArrayListWithCapacity(propertyCount);
+            for (int i = 0; i < propertyCount; i++) {
+                String name = input.readUTF();
+                boolean missing = input.readBoolean();
+                int fileCount = input.readInt();
+                List<FileEntry> files = Lists.newArrayListWithCapacity(fileCount);
+                for (int j = 0; j < fileCount; j++) {
+                    String path = input.readUTF();
+                    if (input.readBoolean()) {
+                        files.add(new FileEntry(path, true, input.readInt(), null, 0, 0));
+                    } else {
+                        files.add(new FileEntry(path, false, 0, HashCode.fromString(input.readUTF()), input.readLong(), input.readLong()));
+                    }
+                }
+                properties.add(new PropertyEntry(name, missing, files));
+            }
+            return properties;
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    private static class PropertyEntry {
+        final String name;
+        final boolean missing;
+        final List<FileEntry> files;
+
+        PropertyEntry(String name, boolean missing, List<FileEntry> files) {
+            this.name = name;
+            this.missing = missing;
+            this.files = files;
+        }
+    }
+
+    private static class FileEntry {
+        // Empty for the root of the property
+        final String path;
+        final boolean directory;
+        final int mode;
+        final HashCode hash;
+        final long length;
+        final long lastModified;
+
+        FileEntry(String path, boolean directory, int mode, @Nullable HashCode hash, long length, long lastModified) {
+            this.path = path;
+            this.directory = directory;
+            this.mode = mode;
+            this.hash = hash;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Keeps a copy of the origin metadata read from the archive, so that it can be stored with the exploded entry.
+     */
+    private static class OriginCapturingReader implements TaskOutputOriginReader {
+        private final TaskOutputOriginReader delegate;
+        private byte[] origin;
+
+        OriginCapturingReader(TaskOutputOriginReader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public OriginTaskExecutionMetadata execute(InputStream inputStream) {
+            try {
+                origin = IOUtils.toByteArray(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return delegate.execute(new ByteArrayInputStream(origin));
+        }
+    }
+}
@@ -19,8 +19,9 @@ package org.gradle.caching.internal.tasks;
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
@@ -43,11 +44,17 @@ import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
 import org.gradle.api.internal.tasks.TaskFilePropertySpec;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 
+import javax.annotation.Nullable;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -60,8 +67,13 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -70,14 +82,22 @@ import static org.gradle.caching.internal.tasks.TaskOutputPackerUtils.makeDirect
 
 /**
  * Packages task output to a POSIX TAR file.
+ *
+ * <p>When an {@link ExecutorFactory} is given, unpacking is pipelined: the archive is read on the calling thread,
+ * while the contents of small files are written to disk and hashed on a bounded pool of writer threads. The pool is created when it is first
+ * needed, is shared by all unpack operations and is stopped when the packer is stopped.</p>
  */
 @SuppressWarnings("Since15")
-public class TarTaskOutputPacker implements TaskOutputPacker {
+public class TarTaskOutputPacker implements TaskOutputPacker, Stoppable {
     private static final String METADATA_PATH = "METADATA";
     private static final Pattern PROPERTY_PATH = Pattern.compile("(missing-)?property-([^/]+)(?:/(.*))?");
     @SuppressWarnings("OctalInteger")
     private static final int FILE_PERMISSION_MASK = 0777;
     private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_WRITERS = 4;
+    // Larger files are written while they are read from the archive
+    private static final int MAX_BUFFERED_FILE_SIZE = 1024 * 1024;
+    private static final int MAX_BUFFERED_BYTES = 16 * 1024 * 1024;
     private static final ThreadLocal<byte[]> COPY_BUFFERS = new ThreadLocal<byte[]>() {
         @Override
         protected byte[] initialValue() {
@@ -88,11 +108,37 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
     private final FileSystem fileSystem;
     private final StreamHasher streamHasher;
     private final StringInterner stringInterner;
+    private final ExecutorFactory executorFactory;
+    private ManagedExecutor writers;
 
     public TarTaskOutputPacker(FileSystem fileSystem, StreamHasher streamHasher, StringInterner stringInterner) {
+        this(fileSystem, streamHasher, stringInterner, null);
+    }
+
+    public TarTaskOutputPacker(FileSystem fileSystem, StreamHasher streamHasher, StringInterner stringInterner, @Nullable ExecutorFactory executorFactory) {
         this.fileSystem = fileSystem;
         this.streamHasher = streamHasher;
         this.stringInterner = stringInterner;
+        this.executorFactory = executorFactory;
+    }
+
+    @Override
+    public void stop() {
+        ManagedExecutor executor;
+        synchronized (this) {
+            executor = writers;
+            writers = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private synchronized ManagedExecutor getWriters() {
+        if (writers == null) {
+            writers = executorFactory.create("Build cache output unpacker", MAX_WRITERS);
+        }
+        return writers;
     }
 
     @Override
@@ -256,42 +302,46 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         });
         TarArchiveEntry tarEntry;
         OriginTaskExecutionMetadata originMetadata = null;
-        ImmutableListMultimap.Builder<String, FileSnapshot> propertyFileSnapshots = ImmutableListMultimap.builder();
+        UnpackedFiles propertyFileSnapshots = new UnpackedFiles();
 
-        long entries = 0;
-        while ((tarEntry = tarInput.getNextTarEntry()) != null) {
-            ++entries;
-            String path = tarEntry.getName();
+        try {
+            long entries = 0;
+            while ((tarEntry = tarInput.getNextTarEntry()) != null) {
+                ++entries;
+                String path = tarEntry.getName();
+
+                if (path.equals(METADATA_PATH)) {
+                    // handle origin metadata
+                    originMetadata = readOriginAction.execute(new CloseShieldInputStream(tarInput));
+                } else {
+                    // handle output property
+                    Matcher matcher = PROPERTY_PATH.matcher(path);
+                    if (!matcher.matches()) {
+                        throw new IllegalStateException("Cached result format error, invalid contents: " + path);
+                    }
 
-            if (path.equals(METADATA_PATH)) {
-                // handle origin metadata
-                originMetadata = readOriginAction.execute(new CloseShieldInputStream(tarInput));
-            } else {
-                // handle output property
-                Matcher matcher = PROPERTY_PATH.matcher(path);
-                if (!matcher.matches()) {
-                    throw new IllegalStateException("Cached result format error, invalid contents: " + path);
-                }
+                    String propertyName = unescape(matcher.group(2));
+                    ResolvedTaskOutputFilePropertySpec propertySpec = propertySpecsMap.get(propertyName);
+                    if (propertySpec == null) {
+                        throw new IllegalStateException(String.format("No output property '%s' registered", propertyName));
+                    }
 
-                String propertyName = unescape(matcher.group(2));
-                ResolvedTaskOutputFilePropertySpec propertySpec = propertySpecsMap.get(propertyName);
-                if (propertySpec == null) {
-                    throw new IllegalStateException(String.format("No output property '%s' registered", propertyName));
+                    boolean outputMissing = matcher.group(1) != null;
+                    String childPath = matcher.group(3);
+                    unpackPropertyEntry(propertySpec, tarInput, tarEntry, childPath, outputMissing, propertyFileSnapshots);
                 }
-
-                boolean outputMissing = matcher.group(1) != null;
-                String childPath = matcher.group(3);
-                unpackPropertyEntry(propertySpec, tarInput, tarEntry, childPath, outputMissing, propertyFileSnapshots);
             }
-        }
-        if (originMetadata == null) {
-            throw new IllegalStateException("Cached result format error, no origin metadata was found.");
-        }
+            if (originMetadata == null) {
+                throw new IllegalStateException("Cached result format error, no origin metadata was found.");
+            }
 
-        return new UnpackResult(originMetadata, entries, propertyFileSnapshots.build());
+            return new UnpackResult(originMetadata, entries, propertyFileSnapshots.build());
+        } finally {
+            propertyFileSnapshots.awaitWrites();
+        }
     }
 
-    private void unpackPropertyEntry(ResolvedTaskOutputFilePropertySpec propertySpec, InputStream input, TarArchiveEntry entry, String childPath, boolean missing, ImmutableMultimap.Builder<String, FileSnapshot> fileSnapshots) throws IOException {
+    private void unpackPropertyEntry(ResolvedTaskOutputFilePropertySpec propertySpec, InputStream input, TarArchiveEntry entry, String childPath, boolean missing, UnpackedFiles fileSnapshots) throws IOException {
         File propertyRoot = propertySpec.getOutputFile();
         String propertyName = propertySpec.getPropertyName();
         if (propertyRoot == null) {
@@ -331,22 +381,108 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
 
         String internedPath = stringInterner.intern(outputFile.getAbsolutePath());
         RelativePath relativePath = root ? RelativePath.parse(!isDirEntry, outputFile.getName()) : RelativePath.parse(!isDirEntry, childPath);
+        int mode = entry.getMode() & FILE_PERMISSION_MASK;
         if (isDirEntry) {
             FileUtils.forceMkdir(outputFile);
-            fileSnapshots.put(propertyName, new DirectoryFileSnapshot(internedPath, relativePath, root));
+            fileSystem.chmod(outputFile, mode);
+            fileSnapshots.add(propertyName, new DirectoryFileSnapshot(internedPath, relativePath, root));
         } else {
-            OutputStream output = new FileOutputStream(outputFile);
-            HashCode hash;
+            fileSnapshots.unpackFile(propertyName, input, entry.getSize(), outputFile, internedPath, relativePath, root, mode);
+        }
+    }
+
+    private FileSnapshot unpackFile(InputStream input, File outputFile, String internedPath, RelativePath relativePath, boolean root, int mode) throws IOException {
+        OutputStream output = new FileOutputStream(outputFile);
+        HashCode hash;
+        try {
+            hash = streamHasher.hashCopy(input, output);
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+        FileHashSnapshot contentSnapshot = new FileHashSnapshot(hash, outputFile.lastModified());
+        fileSystem.chmod(outputFile, mode);
+        return new RegularFileSnapshot(internedPath, relativePath, root, contentSnapshot);
+    }
+
+    /**
+     * Collects the snapshots of the unpacked files in the order they appear in the archive, while small files may be written concurrently.
+     */
+    private class UnpackedFiles {
+        private final List<String> propertyNames = Lists.newArrayList();
+        private final List<Future<FileSnapshot>> snapshots = Lists.newArrayList();
+        private final Semaphore bufferedBytes = new Semaphore(MAX_BUFFERED_BYTES);
+
+        void add(String propertyName, FileSnapshot snapshot) {
+            add(propertyName, Futures.immediateFuture(snapshot));
+        }
+
+        private void add(String propertyName, Future<FileSnapshot> snapshot) {
+            propertyNames.add(propertyName);
+            snapshots.add(snapshot);
+        }
+
+        void unpackFile(String propertyName, InputStream input, long size, final File outputFile, final String internedPath, final RelativePath relativePath, final boolean root, final int mode) throws IOException {
+            if (executorFactory == null || size > MAX_BUFFERED_FILE_SIZE) {
+                add(propertyName, TarTaskOutputPacker.this.unpackFile(input, outputFile, internedPath, relativePath, root, mode));
+                return;
+            }
+            final int bufferSize = (int) size;
+            bufferedBytes.acquireUninterruptibly(bufferSize);
+            final byte[] contents;
             try {
-                hash = streamHasher.hashCopy(input, output);
-            } finally {
-                IOUtils.closeQuietly(output);
+                contents = new byte[bufferSize];
+                IOUtils.readFully(input, contents);
+            } catch (IOException e) {
+                bufferedBytes.release(bufferSize);
+                throw e;
+            }
+            add(propertyName, getWriters().submit(new Callable<FileSnapshot>() {
+                @Override
+                public FileSnapshot call() throws Exception {
+                    try {
+                        return TarTaskOutputPacker.this.unpackFile(new ByteArrayInputStream(contents), outputFile, internedPath, relativePath, root, mode);
+                    } finally {
+                        bufferedBytes.release(bufferSize);
+                    }
+                }
+            }));
+        }
+
+        ImmutableListMultimap<String, FileSnapshot> build() throws IOException {
+            ImmutableListMultimap.Builder<String, FileSnapshot> builder = ImmutableListMultimap.builder();
+            for (int i = 0; i < snapshots.size(); i++) {
+                builder.put(propertyNames.get(i), getSnapshot(snapshots.get(i)));
+            }
+            return builder.build();
+        }
+
+        private FileSnapshot getSnapshot(Future<FileSnapshot> snapshot) throws IOException {
+            try {
+                return snapshot.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
             }
-            FileHashSnapshot contentSnapshot = new FileHashSnapshot(hash, outputFile.lastModified());
-            fileSnapshots.put(propertyName, new RegularFileSnapshot(internedPath, relativePath, root, contentSnapshot));
         }
 
-        fileSystem.chmod(outputFile, entry.getMode() & FILE_PERMISSION_MASK);
+        /**
+         * Waits for the files submitted to the writer pool, so that no file is written after unpacking has finished or failed.
+         */
+        void awaitWrites() {
+            for (Future<FileSnapshot> snapshot : snapshots) {
+                try {
+                    snapshot.get();
+                } catch (ExecutionException e) {
+                    // Reported by build(), or superseded by the failure that stopped unpacking
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
     }
 
     private static String escape(String name) {
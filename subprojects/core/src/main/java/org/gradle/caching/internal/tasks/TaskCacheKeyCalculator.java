@@ -23,13 +23,24 @@ import org.gradle.api.internal.changedetection.state.ValueSnapshot;
 import org.gradle.caching.internal.DefaultBuildCacheHasher;
 import org.gradle.internal.hash.HashCode;
 
+import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 
 public class TaskCacheKeyCalculator {
+    private final String entryFormat;
 
-    public static TaskOutputCachingBuildCacheKey calculate(TaskInternal task, TaskExecution execution) {
+    public TaskCacheKeyCalculator(TaskOutputCompression compression) {
+        this.entryFormat = CompressingTaskOutputPacker.getEntryFormat(compression);
+    }
+
+    @Nullable
+    String getEntryFormat() {
+        return entryFormat;
+    }
+
+    public TaskOutputCachingBuildCacheKey calculate(TaskInternal task, TaskExecution execution) {
         TaskOutputCachingBuildCacheKeyBuilder builder = new DefaultTaskOutputCachingBuildCacheKeyBuilder(task.getIdentityPath());
         builder.appendTaskImplementation(execution.getTaskImplementation());
         builder.appendTaskActionImplementations(execution.getTaskActionImplementations());
@@ -57,6 +68,11 @@ public class TaskCacheKeyCalculator {
             builder.appendOutputPropertyName(cacheableOutputPropertyName);
         }
 
+        // Keep entries that older versions of Gradle cannot unpack out of their reach
+        if (entryFormat != null) {
+            builder.appendEntryFormat(entryFormat);
+        }
+
         return builder.build();
     }
 }
@@ -46,12 +46,15 @@ import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.internal.controller.BuildCacheLoadCommand;
 import org.gradle.caching.internal.controller.BuildCacheStoreCommand;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginFactory;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
 import org.gradle.internal.file.FileType;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -73,12 +76,21 @@ public class TaskOutputCacheCommandFactory {
     private final TaskOutputOriginFactory taskOutputOriginFactory;
     private final FileSystemMirror fileSystemMirror;
     private final StringInterner stringInterner;
+    private final ExplodedTaskOutputStore explodedStore;
 
     public TaskOutputCacheCommandFactory(TaskOutputPacker packer, TaskOutputOriginFactory taskOutputOriginFactory, FileSystemMirror fileSystemMirror, StringInterner stringInterner) {
+        this(packer, taskOutputOriginFactory, fileSystemMirror, stringInterner, null);
+    }
+
+    /**
+     * @param explodedStore When not null, loaded entries are kept exploded on disk, and their outputs are linked from there when they are loaded again.
+     */
+    public TaskOutputCacheCommandFactory(TaskOutputPacker packer, TaskOutputOriginFactory taskOutputOriginFactory, FileSystemMirror fileSystemMirror, StringInterner stringInterner, @Nullable ExplodedTaskOutputStore explodedStore) {
         this.packer = packer;
         this.taskOutputOriginFactory = taskOutputOriginFactory;
         this.fileSystemMirror = fileSystemMirror;
         this.stringInterner = stringInterner;
+        this.explodedStore = explodedStore;
     }
 
     public BuildCacheLoadCommand<OriginTaskExecutionMetadata> createLoad(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, TaskInternal task, TaskProperties taskProperties, TaskOutputsGenerationListener taskOutputsGenerationListener, TaskArtifactState taskArtifactState) {
@@ -114,10 +126,10 @@ public class TaskOutputCacheCommandFactory {
 
         @Override
         public BuildCacheLoadCommand.Result<OriginTaskExecutionMetadata> load(InputStream input) {
-            taskOutputsGenerationListener.beforeTaskOutputsGenerated();
+            taskOutputsGenerationListener.beforeTaskOutputsGenerated(getAffectedOutputPaths());
             final TaskOutputPacker.UnpackResult unpackResult;
             try {
-                unpackResult = packer.unpack(outputProperties, input, taskOutputOriginFactory.createReader(task));
+                unpackResult = unpack(input);
                 updateSnapshots(unpackResult.getSnapshots(), unpackResult.getOriginMetadata());
             } catch (Exception e) {
                 LOGGER.warn("Cleaning outputs for {} after failed load from cache.", task);
@@ -147,6 +159,25 @@ public class TaskOutputCacheCommandFactory {
             };
         }
 
+        private TaskOutputPacker.UnpackResult unpack(InputStream input) throws IOException {
+            TaskOutputOriginReader readOrigin = taskOutputOriginFactory.createReader(task);
+            if (explodedStore != null) {
+                return explodedStore.unpack(cacheKey, outputProperties, input, readOrigin);
+            }
+            return packer.unpack(outputProperties, input, readOrigin);
+        }
+
+        private List<String> getAffectedOutputPaths() {
+            List<String> affectedOutputPaths = new ArrayList<String>();
+            for (ResolvedTaskOutputFilePropertySpec property : outputProperties) {
+                File outputFile = property.getOutputFile();
+                if (outputFile != null) {
+                    affectedOutputPaths.add(outputFile.getAbsolutePath());
+                }
+            }
+            return affectedOutputPaths;
+        }
+
         private void updateSnapshots(ImmutableListMultimap<String, FileSnapshot> propertiesFileSnapshots, OriginTaskExecutionMetadata originMetadata) {
             ImmutableSortedMap.Builder<String, FileCollectionSnapshot> propertySnapshotsBuilder = ImmutableSortedMap.naturalOrder();
             for (ResolvedTaskOutputFilePropertySpec property : outputProperties) {
@@ -30,6 +30,8 @@ public interface TaskOutputCachingBuildCacheKeyBuilder {
 
     void appendOutputPropertyName(String propertyName);
 
+    void appendEntryFormat(String entryFormat);
+
     TaskOutputCachingBuildCacheKey build();
 
     void inputPropertyLoadedByUnknownClassLoader(String propertyName);
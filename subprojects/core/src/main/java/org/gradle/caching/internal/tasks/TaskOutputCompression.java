@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression applied to packed task output.
+ *
+ * <p>The identifier of each value is written to the header of cache entries, so it must never be changed or reused.</p>
+ */
+public enum TaskOutputCompression {
+    /**
+     * No compression. Useful when the cache is on a local disk, where compressing entries costs more time than it saves.
+     */
+    NONE(0, "none") {
+        @Override
+        OutputStream compress(OutputStream output) {
+            return output;
+        }
+
+        @Override
+        InputStream decompress(InputStream input) {
+            return input;
+        }
+    },
+
+    /**
+     * GZIP with the default compression level. This is what older versions of Gradle write.
+     */
+    GZIP(1, "gzip") {
+        @Override
+        OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+
+        @Override
+        InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    },
+
+    /**
+     * GZIP with the fastest compression level. Takes a fraction of the CPU time of {@link #GZIP} for somewhat larger entries.
+     */
+    FAST(2, "fast") {
+        @Override
+        OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+
+        @Override
+        InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * The system property to select the compression of build cache entries stored by the build.
+     */
+    public static final String COMPRESSION_PROPERTY = "org.gradle.unsafe.build-cache.compression";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int id;
+    private final String displayName;
+
+    TaskOutputCompression(int id, String displayName) {
+        this.id = id;
+        this.displayName = displayName;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    abstract OutputStream compress(OutputStream output) throws IOException;
+
+    abstract InputStream decompress(InputStream input) throws IOException;
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    static TaskOutputCompression forId(int id) {
+        for (TaskOutputCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IllegalStateException("Cached result format error, unknown compression: " + id);
+    }
+
+    /**
+     * Returns the compression selected with {@link #COMPRESSION_PROPERTY}, or {@link #GZIP} when none is selected.
+     */
+    public static TaskOutputCompression fromSystemProperty() {
+        String name = System.getProperty(COMPRESSION_PROPERTY);
+        return name == null ? GZIP : forName(name);
+    }
+
+    public static TaskOutputCompression forName(String name) {
+        for (TaskOutputCompression compression : values()) {
+            if (compression.displayName.equals(name)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown build cache compression '%s', supported values are 'none', 'gzip' and 'fast'.", name));
+    }
+}
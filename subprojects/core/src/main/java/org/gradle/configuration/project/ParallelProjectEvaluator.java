@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project;
+
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allows projects to be evaluated from several threads at the same time.
+ *
+ * <p>Each project is evaluated by a single thread. A thread that needs a project that is being evaluated by another thread waits for that evaluation to complete,
+ * unless doing so would wait for itself, in which case it continues with the partially evaluated project, as it would when evaluating serially.</p>
+ *
+ * <p>A project that requires another project that has not been evaluated yet, for example by requesting one of its tasks or by resolving a dependency on it,
+ * is coupled to that project. Evaluating such a project concurrently with the others is not safe, so the first time this happens it is recorded,
+ * and the remaining projects are evaluated one at a time.</p>
+ */
+public class ParallelProjectEvaluator implements ProjectEvaluator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelProjectEvaluator.class);
+
+    private final ProjectEvaluator delegate;
+    private final Lock lock = new ReentrantLock();
+    private final Condition evaluationCompleted = lock.newCondition();
+    private final Map<ProjectStateInternal, Thread> evaluatingThreads = new HashMap<ProjectStateInternal, Thread>();
+    private final Map<Thread, ProjectStateInternal> waitingThreads = new HashMap<Thread, ProjectStateInternal>();
+    private final ThreadLocal<ProjectInternal> currentProject = new ThreadLocal<ProjectInternal>();
+    private volatile boolean crossProjectAccessDetected;
+
+    public ParallelProjectEvaluator(ProjectEvaluator delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns true when a project required another project that had not been evaluated yet.
+     */
+    public boolean isCrossProjectAccessDetected() {
+        return crossProjectAccessDetected;
+    }
+
+    @Override
+    public void evaluate(ProjectInternal project, ProjectStateInternal state) {
+        Thread thread = Thread.currentThread();
+        lock.lock();
+        try {
+            while (true) {
+                if (state.getExecuted()) {
+                    return;
+                }
+                maybeRecordCrossProjectAccess(project);
+                Thread evaluatingThread = evaluatingThreads.get(state);
+                if (evaluatingThread == null) {
+                    break;
+                }
+                if (evaluatingThread == thread || isWaitingFor(evaluatingThread, thread)) {
+                    return;
+                }
+                waitingThreads.put(thread, state);
+                try {
+                    evaluationCompleted.awaitUninterruptibly();
+                } finally {
+                    waitingThreads.remove(thread);
+                }
+            }
+            evaluatingThreads.put(state, thread);
+        } finally {
+            lock.unlock();
+        }
+
+        ProjectInternal previous = currentProject.get();
+        currentProject.set(project);
+        try {
+            delegate.evaluate(project, state);
+        } finally {
+            currentProject.set(previous);
+            lock.lock();
+            try {
+                evaluatingThreads.remove(state);
+                evaluationCompleted.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void maybeRecordCrossProjectAccess(ProjectInternal target) {
+        ProjectInternal source = currentProject.get();
+        if (source == null || source == target || crossProjectAccessDetected) {
+            return;
+        }
+        crossProjectAccessDetected = true;
+        LOGGER.info("{} requires {} to be configured. Configuring the remaining projects one at a time.", source.getDisplayName(), target.getDisplayName());
+    }
+
+    /**
+     * Returns true when the given thread is, directly or through other threads, waiting for a project that the target thread is evaluating.
+     */
+    private boolean isWaitingFor(Thread thread, Thread target) {
+        Thread current = thread;
+        for (int i = 0; i <= waitingThreads.size(); i++) {
+            ProjectStateInternal awaited = waitingThreads.get(current);
+            if (awaited == null) {
+                return false;
+            }
+            current = evaluatingThreads.get(awaited);
+            if (current == null) {
+                return false;
+            }
+            if (current == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import com.google.common.collect.Lists;
+import org.gradle.StartParameter;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.configuration.project.ParallelProjectEvaluator;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.progress.BuildOperationDescriptor;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Configures the projects of a build that declare themselves decoupled concurrently, using the build operation worker pool.
+ *
+ * <p>A project is decoupled when its {@value #DECOUPLED_PROPERTY} property is {@code true}. Such a project promises not to configure other projects,
+ * for example through {@code allprojects {}} or {@code subprojects {}}, and not to rely on other projects having been configured before it. The property
+ * is inherited, so setting it in the {@code gradle.properties} of the root project declares all projects decoupled.</p>
+ *
+ * <p>The root project is always configured first. The other projects are then configured in their usual order, except that consecutive decoupled projects
+ * at the same depth are configured together. As projects are ordered by depth, the parent of a project has been configured before the project is.
+ * When a project turns out to require another project that is not configured yet, the remaining projects are configured one at a time.</p>
+ */
+public class ParallelProjectConfigurer implements ProjectConfigurer {
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.unsafe.parallel-configuration";
+    public static final String DECOUPLED_PROPERTY = "org.gradle.configuration.decoupled";
+
+    private final ProjectConfigurer delegate;
+    private final ParallelProjectEvaluator projectEvaluator;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final Lock serialLock = new ReentrantLock();
+
+    public ParallelProjectConfigurer(ProjectConfigurer delegate, ParallelProjectEvaluator projectEvaluator, BuildOperationExecutor buildOperationExecutor) {
+        this.delegate = delegate;
+        this.projectEvaluator = projectEvaluator;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    /**
+     * Parallel configuration is only used for parallel builds, and not together with configuration on demand.
+     */
+    public static boolean isEnabled(StartParameter startParameter) {
+        return Boolean.getBoolean(PARALLEL_CONFIGURATION_PROPERTY) && startParameter.isParallelProjectExecutionEnabled() && !startParameter.isConfigureOnDemand();
+    }
+
+    @Override
+    public void configure(ProjectInternal project) {
+        delegate.configure(project);
+    }
+
+    @Override
+    public void configureFully(ProjectInternal project) {
+        delegate.configureFully(project);
+    }
+
+    @Override
+    public void configureHierarchy(ProjectInternal project) {
+        configure(project);
+        List<ProjectInternal> decoupled = Lists.newArrayList();
+        for (Project sub : project.getSubprojects()) {
+            ProjectInternal subproject = (ProjectInternal) sub;
+            if (!decoupled.isEmpty() && decoupled.get(0).getDepth() != subproject.getDepth()) {
+                // Configure the parents before their children
+                configureConcurrently(decoupled);
+                decoupled.clear();
+            }
+            if (isDecoupled(subproject)) {
+                decoupled.add(subproject);
+            } else {
+                configureConcurrently(decoupled);
+                decoupled.clear();
+                configure(subproject);
+            }
+        }
+        configureConcurrently(decoupled);
+    }
+
+    @Override
+    public void configureHierarchyFully(ProjectInternal project) {
+        configureHierarchy(project);
+        delegate.configureHierarchyFully(project);
+    }
+
+    private static boolean isDecoupled(ProjectInternal project) {
+        Object value = project.findProperty(DECOUPLED_PROPERTY);
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    private void configureConcurrently(final List<ProjectInternal> projects) {
+        if (projects.size() < 2 || projectEvaluator.isCrossProjectAccessDetected()) {
+            for (ProjectInternal project : projects) {
+                configure(project);
+            }
+            return;
+        }
+
+        final List<ConfigureDecoupledProject> operations = Lists.newArrayListWithCapacity(projects.size());
+        for (ProjectInternal project : projects) {
+            operations.add(new ConfigureDecoupledProject(project));
+        }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<ConfigureDecoupledProject>>() {
+            @Override
+            public void execute(BuildOperationQueue<ConfigureDecoupledProject> queue) {
+                for (ConfigureDecoupledProject operation : operations) {
+                    queue.add(operation);
+                }
+            }
+        });
+        // Report the failure of the first project, as a serial build would
+        for (ConfigureDecoupledProject operation : operations) {
+            if (operation.failure != null) {
+                throw UncheckedException.throwAsUncheckedException(operation.failure);
+            }
+        }
+    }
+
+    private class ConfigureDecoupledProject implements RunnableBuildOperation {
+        private final ProjectInternal project;
+        private Throwable failure;
+
+        private ConfigureDecoupledProject(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (!projectEvaluator.isCrossProjectAccessDetected()) {
+                configureAndRecordFailure(context);
+                return;
+            }
+            serialLock.lock();
+            try {
+                configureAndRecordFailure(context);
+            } finally {
+                serialLock.unlock();
+            }
+        }
+
+        private void configureAndRecordFailure(BuildOperationContext context) {
+            try {
+                configure(project);
+            } catch (Throwable t) {
+                // Rethrown after all projects have been configured, so that the first failure in project order is reported
+                failure = t;
+                context.failed(t);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure decoupled project " + project.getIdentityPath());
+        }
+    }
+}
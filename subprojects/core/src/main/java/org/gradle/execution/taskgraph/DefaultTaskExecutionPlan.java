@@ -77,7 +77,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -97,7 +96,12 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskInfoFactory nodeFactory = new TaskInfoFactory();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    // Nodes that are required to run but have not yet been selected for execution
+    private final Set<TaskInfo> pendingTasks = Sets.newIdentityHashSet();
+    // Pending nodes whose dependencies have all completed, in the order they should be started
+    private final TreeSet<TaskInfo> readyTasks;
+    // Dependencies that are not part of this plan, such as tasks from included builds, and which complete independently of it
+    private final Set<TaskInfo> incompleteExternalDependencies = Sets.newLinkedHashSet();
     private final Map<Project, ResourceLock> projectLocks = Maps.newHashMap();
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
@@ -110,18 +114,27 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Map<TaskInfo, TaskMutationInfo> taskMutations = Maps.newIdentityHashMap();
     private final Map<File, String> canonicalizedFileCache = Maps.newIdentityHashMap();
     private final Map<Pair<TaskInfo, TaskInfo>, Boolean> reachableCache = Maps.newHashMap();
-    private final Set<TaskInfo> dependenciesCompleteCache = Sets.newHashSet();
     private final ResourceLockCoordinationService coordinationService;
     private final WorkerLeaseService workerLeaseService;
     private final GradleInternal gradle;
+    private final TaskDurationHistory durationHistory;
 
     private boolean tasksCancelled;
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, ResourceLockCoordinationService coordinationService, WorkerLeaseService workerLeaseService, GradleInternal gradle) {
+        this(cancellationToken, coordinationService, workerLeaseService, gradle, null);
+    }
+
+    /**
+     * @param durationHistory When not null, ready tasks are started in order of the longest remaining path through the task graph, estimated from previous task durations. Otherwise they are started in execution plan order.
+     */
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, ResourceLockCoordinationService coordinationService, WorkerLeaseService workerLeaseService, GradleInternal gradle, @Nullable TaskDurationHistory durationHistory) {
         this.cancellationToken = cancellationToken;
         this.coordinationService = coordinationService;
         this.workerLeaseService = workerLeaseService;
         this.gradle = gradle;
+        this.durationHistory = durationHistory;
+        this.readyTasks = new TreeSet<TaskInfo>(durationHistory == null ? TaskInfo.EXECUTION_ORDER : TaskInfo.LONGEST_PATH_FIRST);
     }
 
     @Override
@@ -357,9 +370,59 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
+        scheduleExecutionPlan();
+    }
 
+    private void scheduleExecutionPlan() {
+        pendingTasks.clear();
+        readyTasks.clear();
+        incompleteExternalDependencies.clear();
+        if (durationHistory != null) {
+            estimateRemainingPathDurations();
+        }
+        int executionOrder = 0;
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            taskInfo.scheduleAt(executionOrder++);
+            for (TaskInfo dependency : taskInfo.getAllDependencies()) {
+                if (!dependency.isComplete() && executionPlan.get(dependency.getTask()) != dependency) {
+                    incompleteExternalDependencies.add(dependency);
+                }
+            }
+            if (taskInfo.isReady()) {
+                pendingTasks.add(taskInfo);
+                if (taskInfo.allDependenciesComplete()) {
+                    readyTasks.add(taskInfo);
+                }
+            }
+        }
+    }
+
+    private void estimateRemainingPathDurations() {
+        List<TaskInfo> nodes = new ArrayList<TaskInfo>(executionPlan.values());
+        Map<TaskInfo, Long> previousDurations = Maps.newIdentityHashMap();
+        long totalPreviousDuration = 0;
+        for (TaskInfo node : nodes) {
+            Long previousDuration = durationHistory.getPreviousDuration(node.getTask());
+            if (previousDuration != null) {
+                previousDurations.put(node, previousDuration);
+                totalPreviousDuration += previousDuration;
+            }
+        }
+        // Assume that a task that has not been executed before takes as long as an average task
+        long defaultDuration = previousDurations.isEmpty() ? 1 : Math.max(1, totalPreviousDuration / previousDurations.size());
+
+        // Dependents always follow their dependencies in the plan, so walk it backwards
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            TaskInfo node = nodes.get(i);
+            long longestDependentPath = 0;
+            for (TaskInfo dependent : node.getAllDependents()) {
+                if (executionPlan.get(dependent.getTask()) == dependent) {
+                    longestDependentPath = Math.max(longestDependentPath, dependent.getRemainingPathDuration());
+                }
+            }
+            Long previousDuration = previousDurations.get(node);
+            node.setRemainingPathDuration((previousDuration == null ? defaultDuration : previousDuration) + longestDependentPath);
+        }
     }
 
     @Override
@@ -525,13 +588,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 nodeFactory.clear();
                 entryTasks.clear();
                 executionPlan.clear();
-                executionQueue.clear();
+                pendingTasks.clear();
+                readyTasks.clear();
+                incompleteExternalDependencies.clear();
                 projectLocks.clear();
                 failures.clear();
                 taskMutations.clear();
                 canonicalizedFileCache.clear();
                 reachableCache.clear();
-                dependenciesCompleteCache.clear();
                 runningTasks.clear();
                 return FINISHED;
             }
@@ -568,6 +632,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     }
                 }
 
+                pollExternalDependencies();
                 workRemaining.set(workRemaining());
                 if (!workRemaining.get()) {
                     return FINISHED;
@@ -600,39 +665,45 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     private TaskInfo selectNextTask(final WorkerLease workerLease) {
         final AtomicReference<TaskInfo> selected = new AtomicReference<TaskInfo>();
-        final Iterator<TaskInfo> iterator = executionQueue.iterator();
+        // Only visit the nodes that can start now, rather than the whole plan
+        final Iterator<TaskInfo> iterator = readyTasks.iterator();
         while (iterator.hasNext()) {
             final TaskInfo taskInfo = iterator.next();
-            if (taskInfo.isReady() && allDependenciesComplete(taskInfo)) {
-                coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
-                    @Override
-                    public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
-                        ResourceLock projectLock = getProjectLock(taskInfo);
-                        TaskMutationInfo taskMutationInfo = getResolvedTaskMutationInfo(taskInfo);
-
-                        // TODO: convert output file checks to a resource lock
-                        if (!projectLock.tryLock() || !workerLease.tryLock() || !canRunWithCurrentlyExecutedTasks(taskInfo, taskMutationInfo)) {
-                            return FAILED;
-                        }
-
-                        selected.set(taskInfo);
-                        if (taskInfo.allDependenciesSuccessful()) {
-                            recordTaskStarted(taskInfo);
-                            taskInfo.startExecution();
-                        } else {
-                            taskInfo.skipExecution();
-                        }
-                        iterator.remove();
-                        return FINISHED;
+            coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    ResourceLock projectLock = getProjectLock(taskInfo);
+                    TaskMutationInfo taskMutationInfo = getResolvedTaskMutationInfo(taskInfo);
+
+                    // TODO: convert output file checks to a resource lock
+                    if (!projectLock.tryLock() || !workerLease.tryLock() || !canRunWithCurrentlyExecutedTasks(taskInfo, taskMutationInfo)) {
+                        return FAILED;
                     }
-                });
 
-                if (selected.get() != null) {
-                    break;
+                    selected.set(taskInfo);
+                    iterator.remove();
+                    pendingTasks.remove(taskInfo);
+                    if (taskInfo.allDependenciesSuccessful()) {
+                        recordTaskStarted(taskInfo);
+                        taskInfo.startExecution();
+                    } else {
+                        taskInfo.skipExecution();
+                    }
+                    return FINISHED;
                 }
+            });
+
+            if (selected.get() != null) {
+                break;
             }
         }
-        return selected.get();
+
+        TaskInfo selectedTask = selected.get();
+        if (selectedTask != null && selectedTask.isComplete()) {
+            // Skipped, so the dependents no longer need to wait for it
+            notifyDependents(selectedTask);
+        }
+        return selectedTask;
     }
 
     private TaskMutationInfo getResolvedTaskMutationInfo(TaskInfo taskInfo) {
@@ -667,17 +738,37 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
-    private boolean allDependenciesComplete(TaskInfo taskInfo) {
-        if (dependenciesCompleteCache.contains(taskInfo)) {
-            return true;
+    private void pollExternalDependencies() {
+        Iterator<TaskInfo> iterator = incompleteExternalDependencies.iterator();
+        while (iterator.hasNext()) {
+            TaskInfo dependency = iterator.next();
+            if (dependency.isComplete()) {
+                iterator.remove();
+                notifyDependents(dependency);
+            }
         }
+    }
 
-        boolean dependenciesComplete = taskInfo.allDependenciesComplete();
-        if (dependenciesComplete) {
-            dependenciesCompleteCache.add(taskInfo);
+    private void notifyDependents(TaskInfo completedTask) {
+        for (TaskInfo dependent : completedTask.getAllDependents()) {
+            dependent.dependencyCompleted();
+            if (dependent.allDependenciesComplete() && pendingTasks.contains(dependent)) {
+                readyTasks.add(dependent);
+            }
         }
+    }
 
-        return dependenciesComplete;
+    private void enforced(TaskInfo enforcedTask) {
+        for (TaskInfo dependent : enforcedTask.getAllDependents()) {
+            dependent.dependencyEnforced();
+            if (pendingTasks.contains(dependent)) {
+                readyTasks.remove(dependent);
+            }
+        }
+        pendingTasks.add(enforcedTask);
+        if (enforcedTask.allDependenciesComplete()) {
+            readyTasks.add(enforcedTask);
+        }
     }
 
     private boolean allProjectsLocked() {
@@ -901,12 +992,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
                 taskInfo.finishExecution();
                 recordTaskCompleted(taskInfo);
+                notifyDependents(taskInfo);
                 return FINISHED;
             }
         });
     }
 
-    private static void enforceFinalizerTasks(TaskInfo taskInfo) {
+    private void enforceFinalizerTasks(TaskInfo taskInfo) {
         for (TaskInfo finalizerNode : taskInfo.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
                 enforceWithDependencies(finalizerNode, Sets.<TaskInfo>newHashSet());
@@ -914,7 +1006,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
-    private static void enforceWithDependencies(TaskInfo nodeInfo, Set<TaskInfo> enforcedTasks) {
+    private void enforceWithDependencies(TaskInfo nodeInfo, Set<TaskInfo> enforcedTasks) {
         Deque<TaskInfo> candidateNodes = new ArrayDeque<TaskInfo>();
         candidateNodes.add(nodeInfo);
 
@@ -925,7 +1017,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
                 candidateNodes.addAll(node.getDependencySuccessors());
 
-                if (node.isMustNotRun() || node.isRequired()) {
+                if (node.isMustNotRun()) {
+                    // Was previously treated as complete, so now needs to be scheduled
+                    node.enforceRun();
+                    enforced(node);
+                } else if (node.isRequired()) {
                     node.enforceRun();
                 }
             }
@@ -962,21 +1058,24 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean abortExecution(boolean abortAll) {
-        boolean aborted = false;
-        for (TaskInfo taskInfo : executionPlan.values()) {
+        List<TaskInfo> abortedTasks = new ArrayList<TaskInfo>();
+        for (TaskInfo taskInfo : pendingTasks) {
             // Allow currently executing and enforced tasks to complete, but skip everything else.
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
-                aborted = true;
-            }
-
-            // If abortAll is set, also stop enforced tasks.
-            if (abortAll && taskInfo.isReady()) {
+                abortedTasks.add(taskInfo);
+            } else if (abortAll && taskInfo.isReady()) {
+                // If abortAll is set, also stop enforced tasks.
                 taskInfo.abortExecution();
-                aborted = true;
+                abortedTasks.add(taskInfo);
             }
         }
-        return aborted;
+        pendingTasks.removeAll(abortedTasks);
+        readyTasks.removeAll(abortedTasks);
+        for (TaskInfo abortedTask : abortedTasks) {
+            notifyDependents(abortedTask);
+        }
+        return !abortedTasks.isEmpty();
     }
 
     public void awaitCompletion() {
@@ -1009,21 +1108,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean allTasksComplete() {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (!taskInfo.isComplete()) {
-                return false;
-            }
-        }
-        return true;
+        return pendingTasks.isEmpty() && runningTasks.isEmpty();
     }
 
     private boolean workRemaining() {
-        for (TaskInfo taskInfo : executionQueue) {
-            if (!taskInfo.isComplete()) {
-                return true;
-            }
-        }
-        return false;
+        return !pendingTasks.isEmpty();
     }
 
     private static class GraphEdge {
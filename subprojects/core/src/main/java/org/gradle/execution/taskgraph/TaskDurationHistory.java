@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Task;
+
+import javax.annotation.Nullable;
+
+/**
+ * Remembers how long tasks took to execute in previous builds, so that the execution plan can start the tasks on the longest path through the task graph first.
+ */
+public interface TaskDurationHistory {
+    /**
+     * System property that enables critical path scheduling.
+     */
+    String CRITICAL_PATH_SCHEDULING_PROPERTY = "org.gradle.unsafe.critical-path-scheduling";
+
+    /**
+     * Returns the duration in milliseconds of the most recent execution of the given task, or {@code null} when the task has not been executed before.
+     */
+    @Nullable
+    Long getPreviousDuration(Task task);
+
+    /**
+     * Records the duration of an execution of the given task that did work.
+     */
+    void recordDuration(Task task, long durationMillis);
+}
@@ -16,13 +16,39 @@
 
 package org.gradle.execution.taskgraph;
 
+import com.google.common.collect.Sets;
 import org.gradle.api.internal.TaskInternal;
 
 import javax.annotation.Nonnull;
+import java.util.Comparator;
+import java.util.Set;
 import java.util.TreeSet;
 
 public class TaskInfo implements Comparable<TaskInfo> {
 
+    /**
+     * Orders nodes by their position in the execution plan.
+     */
+    public static final Comparator<TaskInfo> EXECUTION_ORDER = new Comparator<TaskInfo>() {
+        @Override
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            return o1.executionOrder < o2.executionOrder ? -1 : (o1.executionOrder == o2.executionOrder ? 0 : 1);
+        }
+    };
+
+    /**
+     * Orders nodes with the longest remaining path through the task graph first, and otherwise by their position in the execution plan.
+     */
+    public static final Comparator<TaskInfo> LONGEST_PATH_FIRST = new Comparator<TaskInfo>() {
+        @Override
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            if (o1.remainingPathDuration != o2.remainingPathDuration) {
+                return o1.remainingPathDuration > o2.remainingPathDuration ? -1 : 1;
+            }
+            return EXECUTION_ORDER.compare(o1, o2);
+        }
+    };
+
     private enum TaskExecutionState {
         UNKNOWN, NOT_REQUIRED, SHOULD_RUN, MUST_RUN, MUST_NOT_RUN, EXECUTING, EXECUTED, SKIPPED
     }
@@ -34,8 +60,12 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> dependencyPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> dependencySuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
+    private final TreeSet<TaskInfo> mustPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private int executionOrder;
+    private int incompleteDependencies;
+    private long remainingPathDuration;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -134,20 +164,61 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return this.getTask().getState().getFailure();
     }
 
-    public boolean allDependenciesComplete() {
-        for (TaskInfo dependency : mustSuccessors) {
+    /**
+     * Records the position of this node in the execution plan and counts the dependencies that have yet to complete.
+     */
+    public void scheduleAt(int executionOrder) {
+        this.executionOrder = executionOrder;
+        int incomplete = 0;
+        for (TaskInfo dependency : getAllDependencies()) {
             if (!dependency.isComplete()) {
-                return false;
+                incomplete++;
             }
         }
+        this.incompleteDependencies = incomplete;
+    }
 
-        for (TaskInfo dependency : dependencySuccessors) {
-            if (!dependency.isComplete()) {
-                return false;
-            }
-        }
+    public long getRemainingPathDuration() {
+        return remainingPathDuration;
+    }
 
-        return true;
+    /**
+     * Sets the estimated time it takes to execute this node and the longest chain of nodes that wait on it.
+     */
+    public void setRemainingPathDuration(long remainingPathDuration) {
+        this.remainingPathDuration = remainingPathDuration;
+    }
+
+    public boolean allDependenciesComplete() {
+        return incompleteDependencies == 0;
+    }
+
+    /**
+     * Called when one of the dependencies of this node has completed.
+     */
+    public void dependencyCompleted() {
+        incompleteDependencies--;
+    }
+
+    /**
+     * Called when one of the dependencies of this node, which was previously considered complete, is required to run after all.
+     */
+    public void dependencyEnforced() {
+        incompleteDependencies++;
+    }
+
+    /**
+     * Returns the nodes that must complete before this node can start, as a combination of its dependencies and must run after successors.
+     */
+    public Set<TaskInfo> getAllDependencies() {
+        return Sets.union(mustSuccessors, dependencySuccessors);
+    }
+
+    /**
+     * Returns the nodes that wait on this node to complete before they can start.
+     */
+    public Set<TaskInfo> getAllDependents() {
+        return Sets.union(mustPredecessors, dependencyPredecessors);
     }
 
     public boolean allDependenciesSuccessful() {
@@ -194,6 +265,7 @@ public class TaskInfo implements Comparable<TaskInfo> {
 
     public void addMustSuccessor(TaskInfo toNode) {
         mustSuccessors.add(toNode);
+        toNode.mustPredecessors.add(this);
     }
 
     public void addFinalizer(TaskInfo finalizerNode) {
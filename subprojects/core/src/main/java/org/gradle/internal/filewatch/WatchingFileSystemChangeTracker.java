@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.changedetection.state.FileSystemChangeTracker;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.file.DefaultFileHierarchySet;
+import org.gradle.internal.file.FileHierarchySet;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uses a {@link FileWatcher} that runs for the lifetime of the daemon to record the files that change between builds.
+ *
+ * Events are delivered asynchronously, so before handing out the changes this tracker writes a 'cookie' file into each watched directory and waits for the event
+ * for the cookie to arrive. All changes made before the cookie was written have been received at that point. When the events cannot be trusted, for example
+ * because the watcher failed or events were lost, all changes are reported as unknown.
+ */
+public class WatchingFileSystemChangeTracker implements FileSystemChangeTracker, Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.unsafe.watch-fs";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchingFileSystemChangeTracker.class);
+    private static final String COOKIE_FILE_PREFIX = ".watch-fs-cookie-";
+    private static final int MAX_CHANGED_PATHS = 100000;
+    private static final long COOKIE_TIMEOUT_MILLIS = 5000;
+    private static final long WATCHER_CHECK_INTERVAL_MILLIS = 100;
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final Lock lock = new ReentrantLock();
+    private final Condition cookieReceived = lock.newCondition();
+    private final Set<String> changedPaths = new HashSet<String>();
+    private final Set<String> pendingCookies = new HashSet<String>();
+    private final List<File> trackedDirectories = new ArrayList<File>();
+    private volatile FileHierarchySet trackedLocations = DefaultFileHierarchySet.of();
+    private FileWatcher watcher;
+    // The watcher reports that it is not running until its thread has started, so only treat it as stopped once it has been seen running
+    private boolean watcherSeenRunning;
+    private boolean changesUnknown;
+    private long cookieCounter;
+
+    public WatchingFileSystemChangeTracker(FileWatcherFactory fileWatcherFactory) {
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    @Override
+    public void track(File directory) {
+        lock.lock();
+        try {
+            if (trackedLocations.contains(directory)) {
+                return;
+            }
+            if (watcher == null) {
+                watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                    @Override
+                    public void execute(Throwable throwable) {
+                        LOGGER.info("Stopped tracking file system changes due to an error.", throwable);
+                        reset();
+                    }
+                }, new FileWatcherListener() {
+                    @Override
+                    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                        recordChange(event);
+                    }
+                });
+            }
+            watcher.watch(FileSystemSubset.builder().add(directory).build());
+            trackedDirectories.add(directory);
+            trackedLocations = trackedLocations.plus(directory);
+            LOGGER.debug("Tracking file system changes in {}.", directory);
+        } catch (IOException e) {
+            LOGGER.info("Could not track file system changes in {}.", directory, e);
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FileHierarchySet getTrackedLocations() {
+        return trackedLocations;
+    }
+
+    @Nullable
+    @Override
+    public Iterable<String> takeChangedPaths() {
+        lock.lock();
+        try {
+            boolean receivedAllEvents = awaitCookies();
+            if (!receivedAllEvents || changesUnknown) {
+                changesUnknown = false;
+                changedPaths.clear();
+                return null;
+            }
+            List<String> result = new ArrayList<String>(changedPaths);
+            changedPaths.clear();
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a cookie into each tracked directory and waits for the watcher to report them. Must be called while holding the lock.
+     */
+    private boolean awaitCookies() {
+        if (watcher == null) {
+            return true;
+        }
+        if (isWatcherStopped()) {
+            LOGGER.info("File system watcher has stopped, discarding file system state.");
+            reset();
+            return false;
+        }
+        List<File> cookies = new ArrayList<File>(trackedDirectories.size());
+        try {
+            for (File directory : trackedDirectories) {
+                File cookie = new File(new File(directory, ".gradle"), COOKIE_FILE_PREFIX + (++cookieCounter));
+                pendingCookies.add(cookie.getAbsolutePath());
+                cookies.add(cookie);
+                GFileUtils.touch(cookie);
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COOKIE_TIMEOUT_MILLIS);
+            while (!pendingCookies.isEmpty()) {
+                if (isWatcherStopped()) {
+                    LOGGER.info("File system watcher has stopped, discarding file system state.");
+                    reset();
+                    return false;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    LOGGER.info("Timed out waiting for file system events, discarding file system state.");
+                    return false;
+                }
+                // Wake up periodically, as a watcher that stops without reporting an error does not signal
+                cookieReceived.awaitNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(WATCHER_CHECK_INTERVAL_MILLIS)));
+            }
+            return watcher != null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            LOGGER.info("Could not wait for file system events, discarding file system state.", e);
+            return false;
+        } finally {
+            pendingCookies.clear();
+            for (File cookie : cookies) {
+                GFileUtils.deleteQuietly(cookie);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private boolean isWatcherStopped() {
+        if (watcher == null) {
+            return true;
+        }
+        if (watcher.isRunning()) {
+            watcherSeenRunning = true;
+            return false;
+        }
+        return watcherSeenRunning;
+    }
+
+    private void recordChange(FileWatcherEvent event) {
+        lock.lock();
+        try {
+            watcherSeenRunning = true;
+            File file = event.getFile();
+            if (file == null) {
+                // Something happened, but we don't know what
+                changesUnknown = true;
+                return;
+            }
+            String path = file.getAbsolutePath();
+            if (file.getName().startsWith(COOKIE_FILE_PREFIX)) {
+                if (pendingCookies.remove(path) && pendingCookies.isEmpty()) {
+                    cookieReceived.signalAll();
+                }
+                return;
+            }
+            if (event.getType() == FileWatcherEvent.Type.MODIFY && file.isDirectory()) {
+                // Changes to the children of a directory are reported separately
+                return;
+            }
+            if (!changesUnknown) {
+                changedPaths.add(path);
+                if (changedPaths.size() > MAX_CHANGED_PATHS) {
+                    changesUnknown = true;
+                    changedPaths.clear();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reset() {
+        lock.lock();
+        try {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+            watcherSeenRunning = false;
+            trackedDirectories.clear();
+            trackedLocations = DefaultFileHierarchySet.of();
+            changedPaths.clear();
+            changesUnknown = true;
+            cookieReceived.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        reset();
+    }
+}
@@ -16,13 +16,36 @@
 
 package org.gradle.internal.hash;
 
+/**
+ * Creates the hashers for file contents. Uses MD5 by default, or Murmur3 when the {@value #MURMUR3_PROPERTY} system property is set.
+ * The hashers start with a signature of the factory and its hash function, so that they produce different hashes to other uses of the same hash function.
+ */
 public class DefaultContentHasherFactory implements ContentHasherFactory {
-    private static final byte[] SIGNATURE = Hashing.md5().hashString(DefaultContentHasherFactory.class.getName()).toByteArray();
+    public static final String MURMUR3_PROPERTY = "org.gradle.unsafe.content-hash.murmur3";
+
+    private final HashFunction hashFunction;
+    private final String cacheNameSuffix;
+    private final byte[] signature;
+
+    public DefaultContentHasherFactory() {
+        this(false);
+    }
+
+    public DefaultContentHasherFactory(boolean murmur3) {
+        this.hashFunction = murmur3 ? Hashing.murmur3_128() : Hashing.md5();
+        this.cacheNameSuffix = murmur3 ? "-murmur3" : "";
+        this.signature = hashFunction.hashString(DefaultContentHasherFactory.class.getName()).toByteArray();
+    }
 
     @Override
     public Hasher create() {
-        Hasher hasher = Hashing.md5().newHasher();
-        hasher.putBytes(SIGNATURE);
+        Hasher hasher = hashFunction.newHasher();
+        hasher.putBytes(signature);
         return hasher;
     }
+
+    @Override
+    public String getCacheNameSuffix() {
+        return cacheNameSuffix;
+    }
 }
@@ -18,23 +18,55 @@ package org.gradle.internal.hash;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.io.NullOutputStream;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
+/**
+ * Hashes streams through a pool of reusable buffers.
+ *
+ * <p>When a mapped hashing threshold is set, the remaining content of a {@link FileInputStream} that is at least as large as the threshold is hashed
+ * by mapping the file into memory instead, which saves copying the content from the page cache into a buffer. The file is mapped in regions of
+ * at most {@value #MAX_MAPPED_REGION_SIZE} bytes, so that files larger than 2GB can be hashed and little address space is taken up at once.
+ * Both paths produce the same hash.</p>
+ */
 public class DefaultStreamHasher implements StreamHasher {
+    /**
+     * The minimum size in bytes of a file to hash it by mapping it into memory. Mapped hashing is disabled when not set.
+     */
+    public static final String MAPPED_HASHING_THRESHOLD_PROPERTY = "org.gradle.unsafe.mapped-hashing-threshold";
+    private static final long MAX_MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
     private final ContentHasherFactory hasherFactory;
+    private final long mappedHashingThreshold;
 
     public DefaultStreamHasher(ContentHasherFactory hasherFactory) {
+        this(hasherFactory, Long.getLong(MAPPED_HASHING_THRESHOLD_PROPERTY, -1));
+    }
+
+    /**
+     * @param mappedHashingThreshold the minimum size of a file to hash it by mapping it into memory, or a negative value to always read files through a buffer.
+     */
+    public DefaultStreamHasher(ContentHasherFactory hasherFactory, long mappedHashingThreshold) {
         this.hasherFactory = hasherFactory;
+        this.mappedHashingThreshold = mappedHashingThreshold;
     }
 
     @Override
     public HashCode hash(InputStream inputStream) {
         try {
+            if (mappedHashingThreshold >= 0 && inputStream instanceof FileInputStream) {
+                HashCode hash = hashMapped(((FileInputStream) inputStream).getChannel());
+                if (hash != null) {
+                    return hash;
+                }
+            }
             return doHash(inputStream, NullOutputStream.INSTANCE);
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to create MD5 hash for file content.", e);
@@ -64,6 +96,27 @@ public class DefaultStreamHasher implements StreamHasher {
         }
     }
 
+    /**
+     * Hashes the content of the channel from its current position by mapping it into memory, or returns null when the content is below the threshold.
+     * Leaves the channel positioned at its end, as if the content had been read.
+     */
+    private HashCode hashMapped(FileChannel channel) throws IOException {
+        long position = channel.position();
+        long size = channel.size();
+        if (size - position < mappedHashingThreshold) {
+            return null;
+        }
+        Hasher hasher = hasherFactory.create();
+        while (position < size) {
+            long regionSize = Math.min(MAX_MAPPED_REGION_SIZE, size - position);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+            hasher.putBytes(region);
+            position += regionSize;
+        }
+        channel.position(size);
+        return hasher.hash();
+    }
+
     private void returnBuffer(byte[] buffer) {
         // Retain buffer if there is capacity in the queue, otherwise discard
         buffers.offer(buffer);
@@ -43,6 +43,9 @@ import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.model.DefaultObjectFactory;
 import org.gradle.api.internal.model.NamedObjectInstantiator;
 import org.gradle.api.internal.provider.DefaultProviderFactory;
+import org.gradle.api.internal.tasks.properties.DefaultPropertyMetadataStore;
+import org.gradle.api.internal.tasks.properties.PropertyMetadataStore;
+import org.gradle.api.internal.tasks.properties.annotations.PropertyAnnotationHandler;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ProviderFactory;
 import org.gradle.api.tasks.util.PatternSet;
@@ -296,6 +299,10 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return new DefaultInstantiatorFactory(classGenerator, cacheFactory);
     }
 
+    PropertyMetadataStore createPropertyMetadataStore(List<PropertyAnnotationHandler> annotationHandlers, CrossBuildInMemoryCacheFactory cacheFactory) {
+        return new DefaultPropertyMetadataStore(annotationHandlers, cacheFactory);
+    }
+
     GradleUserHomeScopeServiceRegistry createGradleUserHomeScopeServiceRegistry(ServiceRegistry globalServices) {
         return new DefaultGradleUserHomeScopeServiceRegistry(globalServices, new GradleUserHomeScopeServices(globalServices));
     }
@@ -353,7 +360,7 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
     }
 
     ContentHasherFactory createHasherFactory() {
-        return new DefaultContentHasherFactory();
+        return new DefaultContentHasherFactory(Boolean.getBoolean(DefaultContentHasherFactory.MURMUR3_PROPERTY));
     }
 
     StreamHasher createStreamHasher(ContentHasherFactory hasherFactory) {
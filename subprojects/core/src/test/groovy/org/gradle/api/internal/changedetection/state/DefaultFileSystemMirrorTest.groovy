@@ -19,6 +19,7 @@ package org.gradle.api.internal.changedetection.state
 import org.gradle.BuildResult
 import org.gradle.api.internal.GradleInternal
 import org.gradle.internal.classpath.CachedJarFileStore
+import org.gradle.internal.file.DefaultFileHierarchySet
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -141,4 +142,118 @@ class DefaultFileSystemMirrorTest extends Specification {
         mirror.getDirectoryTree(file.path) == null
         mirror.getContent(file.path) == null
     }
+
+    def "discards state about affected files, their ancestors and their descendants when task outputs are generated"() {
+        def parent = tmpDir.file("parent")
+        def output = parent.file("output")
+        def child = output.file("child")
+        def sibling = parent.file("sibling")
+        def siblingWithCommonPrefix = tmpDir.file("parent/output-2")
+
+        given:
+        [parent, output, child, sibling, siblingWithCommonPrefix].each { file ->
+            mirror.putFile(fileSnapshot(file))
+            mirror.putDirectory(treeSnapshot(file))
+            mirror.putContent(file.path, Stub(Snapshot))
+        }
+
+        when:
+        mirror.beforeTaskOutputsGenerated([output.path])
+
+        then:
+        [parent, output, child].each { file ->
+            assert mirror.getFile(file.path) == null
+            assert mirror.getDirectoryTree(file.path) == null
+            assert mirror.getContent(file.path) == null
+        }
+        [sibling, siblingWithCommonPrefix].each { file ->
+            assert mirror.getFile(file.path) != null
+            assert mirror.getDirectoryTree(file.path) != null
+            assert mirror.getContent(file.path) != null
+        }
+    }
+
+    def "keeps state about unchanged files between builds when changes are tracked"() {
+        def changeTracker = Mock(FileSystemChangeTracker)
+        def changed = tmpDir.file("changed")
+        def unchanged = tmpDir.file("unchanged")
+        def cached = cacheDir.file("some/dir/a")
+        def fileStore = Stub(CachedJarFileStore)
+        fileStore.fileStoreRoots >> [cacheDir]
+        mirror = new DefaultFileSystemMirror([fileStore], changeTracker)
+
+        given:
+        [changed, unchanged, cached].each { file ->
+            mirror.putFile(fileSnapshot(file))
+        }
+
+        when:
+        mirror.beforeComplete()
+        mirror.afterStart()
+
+        then:
+        1 * changeTracker.getTrackedLocations() >> DefaultFileHierarchySet.of(tmpDir.testDirectory)
+        1 * changeTracker.takeChangedPaths() >> [changed.path]
+
+        and:
+        mirror.getFile(changed.path) == null
+        mirror.getFile(unchanged.path) != null
+        mirror.getFile(cached.path) == null
+    }
+
+    def "discards state about files that are not tracked at the end of a build"() {
+        def changeTracker = Mock(FileSystemChangeTracker)
+        def trackedDir = tmpDir.createDir("tracked")
+        def tracked = trackedDir.file("a")
+        def untracked = tmpDir.file("untracked/a")
+        mirror = new DefaultFileSystemMirror([], changeTracker)
+
+        given:
+        mirror.putFile(fileSnapshot(tracked))
+        mirror.putFile(fileSnapshot(untracked))
+
+        when:
+        mirror.beforeComplete()
+        mirror.afterStart()
+
+        then:
+        1 * changeTracker.getTrackedLocations() >> DefaultFileHierarchySet.of(trackedDir)
+        1 * changeTracker.takeChangedPaths() >> []
+
+        and:
+        mirror.getFile(tracked.path) != null
+        mirror.getFile(untracked.path) == null
+    }
+
+    def "discards state at the start of a build when changes are not known"() {
+        def changeTracker = Mock(FileSystemChangeTracker)
+        def file = tmpDir.file("a")
+        mirror = new DefaultFileSystemMirror([], changeTracker)
+
+        given:
+        mirror.putFile(fileSnapshot(file))
+
+        when:
+        mirror.beforeComplete()
+        mirror.afterStart()
+
+        then:
+        1 * changeTracker.getTrackedLocations() >> DefaultFileHierarchySet.of(tmpDir.testDirectory)
+        1 * changeTracker.takeChangedPaths() >> null
+
+        and:
+        mirror.getFile(file.path) == null
+    }
+
+    private FileSnapshot fileSnapshot(File file) {
+        Stub(FileSnapshot) {
+            getPath() >> file.path
+        }
+    }
+
+    private FileTreeSnapshot treeSnapshot(File file) {
+        Stub(FileTreeSnapshot) {
+            getPath() >> file.path
+        }
+    }
 }
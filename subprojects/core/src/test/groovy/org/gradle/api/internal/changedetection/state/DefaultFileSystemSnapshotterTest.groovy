@@ -20,6 +20,7 @@ import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.DirectoryFileTree
 import org.gradle.caching.internal.DefaultBuildCacheHasher
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.file.FileType
 import org.gradle.internal.hash.TestFileHasher
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -255,4 +256,24 @@ class DefaultFileSystemSnapshotterTest extends Specification {
         snapshot.appendToHasher(builder)
         return builder.hash()
     }
+
+    def "hashes files of a directory tree in parallel and lists them in the order they were visited"() {
+        def d = tmpDir.createDir("d")
+        20.times { i ->
+            d.createFile("d${i % 3}/f$i") << "content $i"
+        }
+        def parallelSnapshotter = new DefaultFileSystemSnapshotter(fileHasher, new StringInterner(), TestFiles.fileSystem(), TestFiles.directoryFileTreeFactory(), new DefaultFileSystemMirror([]), new DefaultExecutorFactory())
+
+        when:
+        def expected = snapshotter.snapshotDirectoryTree(d)
+        def snapshot = parallelSnapshotter.snapshotDirectoryTree(d)
+
+        then:
+        snapshot.descendants.size() == 23
+        snapshot.descendants*.path == expected.descendants*.path
+        snapshot.descendants*.content == expected.descendants*.content
+
+        cleanup:
+        parallelSnapshotter?.stop()
+    }
 }
@@ -348,6 +348,226 @@ public class DefaultTaskContainerTest extends Specification {
         container.names == ['task1', 'task2'] as SortedSet
     }
 
+    void "registered task is not created until it is required"() {
+        given:
+        def task = task("task")
+
+        when:
+        def provider = container.register("task", DefaultTask)
+
+        then:
+        0 * taskFactory._
+        provider.name == "task"
+        provider.type == DefaultTask
+        container.names == ['task'] as SortedSet
+
+        when:
+        def result = container.getByName("task")
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> task
+        result == task
+        provider.get() == task
+    }
+
+    void "configures registered task after container actions when it is created"() {
+        given:
+        def task = task("task")
+        def containerAction = Mock(Action)
+        def registerAction = Mock(Action)
+        def laterAction = Mock(Action)
+        taskFactory.create("task", Task) >> task
+        container.all(containerAction)
+
+        when:
+        def provider = container.register("task", registerAction)
+        provider.configure(laterAction)
+
+        then:
+        0 * _.execute(_)
+
+        when:
+        container.getByName("task")
+
+        then:
+        1 * containerAction.execute(task)
+
+        then:
+        1 * registerAction.execute(task)
+
+        then:
+        1 * laterAction.execute(task)
+    }
+
+    void "runs configure action immediately when registered task has already been created"() {
+        given:
+        def task = task("task")
+        def action = Mock(Action)
+        taskFactory.create("task", DefaultTask) >> task
+        def provider = container.register("task", DefaultTask)
+        provider.get()
+
+        when:
+        provider.configure(action)
+
+        then:
+        1 * action.execute(task)
+    }
+
+    void "cannot register task with the same name as an existing task"() {
+        given:
+        addTask("task")
+
+        when:
+        container.register("task", DefaultTask)
+
+        then:
+        InvalidUserDataException e = thrown()
+        e.message == "Cannot register task 'task' as a task with that name already exists."
+    }
+
+    void "cannot create task with the same name as a registered task"() {
+        given:
+        container.register("task", DefaultTask)
+        taskFactory.create("task", DefaultTask) >> task("task")
+
+        when:
+        container.create("task")
+
+        then:
+        InvalidUserDataException e = thrown()
+        e.message == "Cannot add Mock for type 'DefaultTask' named '[task1]' as a task with that name already exists."
+    }
+
+    void "iterating the container creates registered tasks"() {
+        given:
+        def task = task("task")
+        container.register("task", DefaultTask)
+
+        when:
+        def tasks = container.toList()
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> task
+        tasks == [task]
+        container.size() == 1
+        container.asMap == [task: task]
+        container.findAll { true } == [task] as Set
+    }
+
+    void "iterating a filtered collection creates registered tasks"() {
+        given:
+        def task = task("task", CustomTask)
+        container.register("task", CustomTask)
+
+        when:
+        def tasks = container.withType(CustomTask).matching { true }.toList()
+
+        then:
+        1 * taskFactory.create("task", CustomTask) >> task
+        tasks == [task]
+    }
+
+    void "iterating a filtered collection does not create registered tasks of an unrelated type"() {
+        given:
+        def task = task("task", CustomTask)
+        container.register("task", CustomTask)
+        container.register("other", DefaultTask)
+
+        when:
+        def tasks = container.withType(CustomTask).toList()
+
+        then:
+        1 * taskFactory.create("task", CustomTask) >> task
+        0 * taskFactory._
+        tasks == [task]
+    }
+
+    void "iterating a filtered collection creates registered tasks of a supertype"() {
+        given:
+        def task = task("task", CustomTask)
+        container.register("task", Task)
+
+        when:
+        def tasks = container.withType(CustomTask).toList()
+
+        then:
+        1 * taskFactory.create("task", Task) >> task
+        tasks == [task]
+    }
+
+    void "all creates registered tasks"() {
+        given:
+        def task = task("task")
+        def action = Mock(Action)
+        container.register("task", DefaultTask)
+
+        when:
+        container.matching { true }.all(action)
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> task
+        1 * action.execute(task)
+    }
+
+    void "whenTaskAdded does not create registered tasks"() {
+        given:
+        def task = task("task")
+        def action = Mock(Action)
+        container.register("task", DefaultTask)
+
+        when:
+        container.whenTaskAdded(action)
+
+        then:
+        0 * taskFactory._
+        0 * action._
+
+        when:
+        container.getByName("task")
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> task
+        1 * action.execute(task)
+    }
+
+    void "whenTaskCreated runs action when registered task is created"() {
+        given:
+        def task = task("task")
+        def other = task("other")
+        def action = Mock(Action)
+        container.register("task", DefaultTask)
+        container.register("other", DefaultTask)
+
+        when:
+        container.whenTaskCreated("task", action)
+
+        then:
+        0 * taskFactory._
+        0 * action._
+
+        when:
+        container.toList()
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> task
+        1 * taskFactory.create("other", DefaultTask) >> other
+        1 * action.execute(task)
+        0 * action._
+    }
+
+    void "whenTaskCreated runs action immediately for existing task"() {
+        given:
+        def task = addTask("task")
+        def action = Mock(Action)
+
+        when:
+        container.whenTaskCreated("task", action)
+
+        then:
+        1 * action.execute(task)
+    }
+
     void "maybeCreate creates new task"() {
         given:
         def task = task("task")
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.execution
 import org.gradle.api.execution.TaskActionListener
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.file.collections.SimpleFileCollection
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.tasks.ContextAwareTaskAction
 import org.gradle.api.internal.tasks.OriginTaskExecutionMetadata
@@ -48,6 +49,7 @@ class ExecuteActionsTaskExecutorTest extends Specification {
     def state = new TaskStateInternal()
     def taskArtifactState = Mock(TaskArtifactState)
     def executionContext = Mock(TaskExecutionContext)
+    def taskProperties = Stub(TaskProperties)
     def scriptSource = Mock(ScriptSource)
     def standardOutputCapture = Mock(StandardOutputCapture)
     def publicListener = Mock(TaskActionListener)
@@ -67,6 +69,7 @@ class ExecuteActionsTaskExecutorTest extends Specification {
         project.getBuildScriptSource() >> scriptSource
         task.getStandardOutputCapture() >> standardOutputCapture
         executionContext.taskArtifactState >> taskArtifactState
+        executionContext.taskProperties >> taskProperties
     }
 
     void noMoreInteractions() {
@@ -158,6 +161,45 @@ class ExecuteActionsTaskExecutorTest extends Specification {
         state.actionable
     }
 
+    def notifiesListenerAboutDeclaredOutputsBeforeExecutingActions() {
+        given:
+        def outputFile = new File("output").absoluteFile
+        def localStateFile = new File("local-state").absoluteFile
+        def destroyableFile = new File("destroyable").absoluteFile
+        task.getTaskActions() >> [action1]
+        taskProperties.hasDeclaredOutputs() >> true
+        taskProperties.outputFiles >> new SimpleFileCollection(outputFile)
+        taskProperties.localStateFiles >> new SimpleFileCollection(localStateFile)
+        taskProperties.destroyableFiles >> new SimpleFileCollection(destroyableFile)
+
+        when:
+        executer.execute(task, state, executionContext)
+
+        then:
+        1 * publicListener.beforeActions(task)
+        then:
+        1 * internalListener.beforeTaskOutputsGenerated([outputFile.absolutePath, localStateFile.absolutePath, destroyableFile.absolutePath])
+        then:
+        1 * standardOutputCapture.start()
+        then:
+        1 * action1.contextualise(executionContext)
+        then:
+        1 * action1.execute(task)
+        then:
+        1 * action1.releaseContext()
+        then:
+        1 * asyncWorkTracker.waitForCompletion(_, true)
+        then:
+        1 * buildOperationExecutor.run(_ as RunnableBuildOperation) >> { args -> args[0].run(Stub(BuildOperationContext)) }
+        then:
+        1 * standardOutputCapture.stop()
+        then:
+        1 * taskArtifactState.snapshotAfterTaskExecution(null, buildInvocationId, executionContext)
+        then:
+        1 * publicListener.afterActions(task)
+        noMoreInteractions()
+    }
+
     def executeDoesOperateOnNewActionListInstance() {
         given:
         interaction {
@@ -98,7 +98,8 @@ class SkipEmptySourceFilesTaskExecuterTest extends Specification {
         1 * taskArtifactState.executionHistory >> taskExecutionHistory
         1 * taskExecutionHistory.outputFiles >> outputFiles
         1 * taskExecutionHistory.overlappingOutputs >> null
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * previousFile.absolutePath >> "previous-file"
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated(["previous-file"])
 
         then: 'deleting the file succeeds'
         1 * cleanupRegistry.isOutputOwnedByBuild(previousFile) >> true
@@ -136,7 +137,8 @@ class SkipEmptySourceFilesTaskExecuterTest extends Specification {
         1 * taskArtifactState.executionHistory >> taskExecutionHistory
         1 * taskExecutionHistory.outputFiles >> outputFiles
         1 * taskExecutionHistory.overlappingOutputs >> null
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * previousFile.absolutePath >> "previous-file"
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated(["previous-file"])
 
         then: 'deleting the file succeeds'
         1 * previousFile.exists() >> true
@@ -173,7 +175,9 @@ class SkipEmptySourceFilesTaskExecuterTest extends Specification {
         1 * taskArtifactState.executionHistory >> taskExecutionHistory
         1 * taskExecutionHistory.outputFiles >> outputFiles
         1 * taskExecutionHistory.overlappingOutputs >> new OverlappingOutputs("outputProperty", "some/path")
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * previousFile.absolutePath >> "previous-file"
+        1 * previousDirectory.absolutePath >> "previous-directory"
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated(["previous-file", "previous-directory"])
 
         then: 'deleting the file succeeds'
         _ * previousFile.exists() >> true
@@ -216,7 +220,8 @@ class SkipEmptySourceFilesTaskExecuterTest extends Specification {
         1 * taskArtifactState.executionHistory >> taskExecutionHistory
         1 * taskExecutionHistory.outputFiles >> outputFiles
         1 * taskExecutionHistory.overlappingOutputs >> null
-        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated()
+        1 * previousFile.absolutePath >> "previous-file"
+        1 * taskOutputsGenerationListener.beforeTaskOutputsGenerated(["previous-file"])
 
         then: 'deleting the previous file fails'
         1 * cleanupRegistry.isOutputOwnedByBuild(previousFile) >> true
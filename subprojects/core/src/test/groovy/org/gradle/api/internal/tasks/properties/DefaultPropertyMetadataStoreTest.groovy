@@ -43,6 +43,8 @@ import org.gradle.api.tasks.OutputDirectories
 import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.OutputFiles
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
+import org.gradle.internal.event.DefaultListenerManager
 import spock.lang.Issue
 import spock.lang.Shared
 import spock.lang.Specification
@@ -74,6 +76,8 @@ class DefaultPropertyMetadataStoreTest extends Specification {
         (CompileClasspath): CompileClasspathPropertyAnnotationHandler
     ]
 
+    def cacheFactory = new CrossBuildInMemoryCacheFactory(new DefaultListenerManager())
+
     @Shared GroovyClassLoader groovyClassLoader
 
     def setupSpec() {
@@ -109,7 +113,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
             annotatedProperties << propertyInfo.propertyName
         }
         def annotationHandler = new SearchPathAnnotationHandler(configureAction)
-        def metadataStore = new DefaultPropertyMetadataStore([annotationHandler])
+        def metadataStore = new DefaultPropertyMetadataStore([annotationHandler], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(TaskWithCustomAnnotation).propertiesMetadata
@@ -122,6 +126,17 @@ class DefaultPropertyMetadataStoreTest extends Specification {
         metadata.validationMessages.empty
     }
 
+    def "reuses metadata for a type"() {
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
+
+        when:
+        def first = metadataStore.getTypeMetadata(TaskWithCustomAnnotation)
+        def second = metadataStore.getTypeMetadata(TaskWithCustomAnnotation)
+
+        then:
+        first.is(second)
+    }
+
     class TaskWithInputFile extends DefaultTask {
         @InputFile getFile() {}
     }
@@ -135,7 +150,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "can make property internal and then make it into another type of property"() {
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         expect:
         isOfType(metadataStore.getTypeMetadata(TaskWithInputFile).propertiesMetadata.first(), InputFile)
@@ -157,7 +172,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
             }
         """
 
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         def parentMetadata = metadataStore.getTypeMetadata(parentTask).propertiesMetadata.first()
         def childMetadata = metadataStore.getTypeMetadata(childTask).propertiesMetadata.first()
@@ -186,7 +201,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
             }
         """
 
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         def parentMetadata = metadataStore.getTypeMetadata(parentTask).propertiesMetadata.first()
         def childMetadata = metadataStore.getTypeMetadata(childTask).propertiesMetadata.first()
@@ -215,7 +230,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
             }
         """
 
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         def parentMetadata = metadataStore.getTypeMetadata(parentTask).propertiesMetadata.first()
         def childMetadata = metadataStore.getTypeMetadata(childTask).propertiesMetadata.first()
@@ -239,7 +254,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     // need to declare their @Classpath properties as @InputFiles as well
     @Issue("https://github.com/gradle/gradle/issues/913")
     def "@Classpath takes precedence over @InputFiles when both are declared on property"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(ClasspathPropertyTask).propertiesMetadata
@@ -271,7 +286,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
 
     @Issue("https://github.com/gradle/gradle/issues/913")
     def "@Classpath does not take precedence over @InputFiles when overriding properties in child type"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(OverridingClasspathPropertyTask).propertiesMetadata
@@ -292,7 +307,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "warns about both method and field having the same annotation"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def metadata = metadataStore.getTypeMetadata(TaskWithBothFieldAndGetterAnnotation).propertiesMetadata.first()
@@ -311,7 +326,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "doesn't warn about both method and field having the same irrelevant annotation"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def metadata = metadataStore.getTypeMetadata(TaskWithBothFieldAndGetterAnnotationButIrrelevant).propertiesMetadata.first()
@@ -337,7 +352,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "warns about annotations on private properties"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def metadata = metadataStore.getTypeMetadata(TaskWithAnnotationsOnPrivateProperties).propertiesMetadata
@@ -360,7 +375,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "warns about conflicting property types being specified"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def metadata = metadataStore.getTypeMetadata(TaskWithConflictingPropertyTypes).propertiesMetadata
@@ -379,7 +394,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "doesn't warn about non-conflicting property types being specified"() {
-        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()])
+        def metadataStore = new DefaultPropertyMetadataStore([new ClasspathPropertyAnnotationHandler()], cacheFactory)
 
         when:
         def metadata = metadataStore.getTypeMetadata(TaskWithNonConflictingPropertyTypes).propertiesMetadata
@@ -404,7 +419,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "can get annotated properties of simple task"() {
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(SimpleTask).propertiesMetadata
@@ -438,7 +453,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "overridden properties inherit super-class annotations"() {
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(OverridingTask).propertiesMetadata
@@ -460,7 +475,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
     }
 
     def "implemented properties inherit interface annotations"() {
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(InterfaceImplementingTask).propertiesMetadata
@@ -491,7 +506,7 @@ class DefaultPropertyMetadataStoreTest extends Specification {
 
     @Issue("https://issues.gradle.org/browse/GRADLE-2115")
     def "annotation on private filed is recognized for is-getter"() {
-        def metadataStore = new DefaultPropertyMetadataStore([])
+        def metadataStore = new DefaultPropertyMetadataStore([], cacheFactory)
 
         when:
         def typeMetadata = metadataStore.getTypeMetadata(IsGetterTask).propertiesMetadata
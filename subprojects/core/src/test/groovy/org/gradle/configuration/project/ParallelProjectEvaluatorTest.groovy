@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class ParallelProjectEvaluatorTest extends ConcurrentSpec {
+    def projectA = project("a")
+    def projectB = project("b")
+    def stateA = new ProjectStateInternal()
+    def stateB = new ProjectStateInternal()
+    Closure action = { ProjectInternal project, ProjectStateInternal state -> }
+    def delegate = new ProjectEvaluator() {
+        @Override
+        void evaluate(ProjectInternal project, ProjectStateInternal state) {
+            action(project, state)
+            state.executed()
+        }
+    }
+    def evaluator = new ParallelProjectEvaluator(delegate)
+
+    def "evaluates a project once when multiple threads request it"() {
+        def evaluated = []
+
+        given:
+        action = { ProjectInternal project, ProjectStateInternal state ->
+            evaluated << project
+            instant.evaluating
+            thread.block()
+        }
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(projectA, stateA)
+            }
+            start {
+                thread.blockUntil.evaluating
+                evaluator.evaluate(projectA, stateA)
+                instant.secondDone
+            }
+        }
+
+        then:
+        evaluated == [projectA]
+        stateA.executed
+        instant.secondDone > instant.evaluating
+        !evaluator.crossProjectAccessDetected
+    }
+
+    def "records when a project requires another project that is not evaluated yet"() {
+        given:
+        action = { ProjectInternal project, ProjectStateInternal state ->
+            if (project == projectA) {
+                evaluator.evaluate(projectB, stateB)
+            }
+        }
+
+        when:
+        evaluator.evaluate(projectA, stateA)
+
+        then:
+        stateA.executed
+        stateB.executed
+        evaluator.crossProjectAccessDetected
+    }
+
+    def "does not record access to a project that has already been evaluated"() {
+        given:
+        evaluator.evaluate(projectB, stateB)
+        action = { ProjectInternal project, ProjectStateInternal state ->
+            evaluator.evaluate(projectB, stateB)
+        }
+
+        when:
+        evaluator.evaluate(projectA, stateA)
+
+        then:
+        !evaluator.crossProjectAccessDetected
+    }
+
+    def "does not wait when projects being evaluated by different threads require each other"() {
+        given:
+        action = { ProjectInternal project, ProjectStateInternal state ->
+            if (project == projectA) {
+                instant.aStarted
+                thread.blockUntil.bStarted
+                evaluator.evaluate(projectB, stateB)
+            } else {
+                instant.bStarted
+                thread.blockUntil.aStarted
+                thread.block()
+                evaluator.evaluate(projectA, stateA)
+            }
+        }
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(projectA, stateA)
+            }
+            start {
+                evaluator.evaluate(projectB, stateB)
+            }
+        }
+
+        then:
+        stateA.executed
+        stateB.executed
+        evaluator.crossProjectAccessDetected
+    }
+
+    def project(String name) {
+        def project = Stub(ProjectInternal)
+        project.displayName >> "project '$name'"
+        return project
+    }
+}
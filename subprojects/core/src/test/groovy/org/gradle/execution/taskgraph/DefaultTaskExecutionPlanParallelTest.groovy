@@ -239,6 +239,25 @@ class DefaultTaskExecutionPlanParallelTest extends ConcurrentSpec {
         operation."${c.path}".start > operation."${b.path}".end
     }
 
+    def "task that must run after a finalizer waits for the finalizer once it is enforced"() {
+        given:
+        Task finalizer = root.task("finalizer", type: Async)
+        Task finalized = root.task("finalized", type: Async).finalizedBy(finalizer)
+        Task c = root.task("c", type: Async).mustRunAfter(finalized, finalizer)
+
+        when:
+        addToGraphAndPopulate(finalized, c)
+        async {
+            startTaskWorkers(2)
+
+            releaseTasks(finalized, finalizer, c)
+        }
+
+        then:
+        operation."${finalizer.path}".start > operation."${finalized.path}".end
+        operation."${c.path}".start > operation."${finalizer.path}".end
+    }
+
     def "two tasks that have the same file in outputs are not executed in parallel"() {
         def sharedFile = file("output")
 
@@ -271,6 +271,41 @@ class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
         orderingRule << ['mustRunAfter', 'shouldRunAfter']
     }
 
+    def "starts tasks on the longest path through the graph first when task durations are known"() {
+        given:
+        def durationHistory = Stub(TaskDurationHistory) {
+            getPreviousDuration(_) >> { Task t -> [a: 100L, b: 10L, c: 500L][t.name] }
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, coordinationService, workerLeaseService, Mock(GradleInternal), durationHistory)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executionPlan.tasks == [a, b, c]
+        executedTasks == [b, c, a]
+    }
+
+    def "tasks without a known duration are assumed to take as long as an average task"() {
+        given:
+        def durationHistory = Stub(TaskDurationHistory) {
+            getPreviousDuration(_) >> { Task t -> [a: 100L, b: 40L][t.name] }
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, coordinationService, workerLeaseService, Mock(GradleInternal), durationHistory)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executedTasks == [b, a, c]
+    }
+
     def "finalizer tasks are executed if a finalized task is added to the graph"() {
         Task finalizer = task("a")
         Task finalized = task("b", finalizedBy: [finalizer])
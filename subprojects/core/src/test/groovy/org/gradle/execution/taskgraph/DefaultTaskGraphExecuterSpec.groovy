@@ -28,6 +28,7 @@ import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
 import org.gradle.api.internal.tasks.TaskDestroyablesInternal
 import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionOutcome
 import org.gradle.api.internal.tasks.TaskLocalStateInternal
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.specs.Spec
@@ -551,6 +552,31 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         executedTasks == [a, c]
     }
 
+    def "records how long tasks that did work took to execute when task durations are tracked"() {
+        def durationHistory = Mock(TaskDurationHistory)
+        def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(parallelismConfiguration, executorFactory, workerLeases), Factories.constant(executer), cancellationToken, buildOperationExecutor, workerLeases, coordinationService, Mock(GradleInternal), durationHistory)
+        def failure = new RuntimeException()
+        def a = task("a")
+        def b = brokenTask("b", failure)
+
+        given:
+        taskExecuter.useFailureHandler(Stub(TaskFailureHandler))
+        taskExecuter.addTasks([a, b])
+
+        when:
+        taskExecuter.execute()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+
+        and:
+        2 * durationHistory.getPreviousDuration(_) >> null
+        1 * durationHistory.recordDuration(a, _)
+        0 * durationHistory._
+        executedTasks == [a, b]
+    }
+
     def newTask(String name) {
         def mock = Mock(TaskInternal)
         _ * mock.name >> name
@@ -558,6 +584,7 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         _ * mock.project >> project
         _ * mock.state >> Stub(TaskStateInternal) {
             getFailure() >> null
+            getOutcome() >> TaskExecutionOutcome.EXECUTED
         }
         _ * mock.finalizedBy >> Stub(TaskDependency)
         _ * mock.mustRunAfter >> Stub(TaskDependency)
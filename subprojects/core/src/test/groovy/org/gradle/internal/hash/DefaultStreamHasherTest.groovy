@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DefaultStreamHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "mapped hashing produces the same hash as buffered hashing for #length bytes"() {
+        def file = tmpDir.file("file.bin")
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+        file.bytes = bytes
+        def contentHasherFactory = new DefaultContentHasherFactory(murmur3)
+
+        expect:
+        new DefaultFileHasher(new DefaultStreamHasher(contentHasherFactory, 0)).hash(file) == new DefaultFileHasher(new DefaultStreamHasher(contentHasherFactory, -1)).hash(file)
+
+        where:
+        length | murmur3
+        0      | false
+        10     | true
+        8192   | false
+        100003 | true
+    }
+
+    def "hashes remaining content of a file stream"() {
+        def file = tmpDir.file("file.bin")
+        file.bytes = new byte[1000]
+        def contentHasherFactory = new DefaultContentHasherFactory()
+        def buffered = new DefaultStreamHasher(contentHasherFactory, -1)
+        def mapped = new DefaultStreamHasher(contentHasherFactory, 0)
+
+        when:
+        def input = new FileInputStream(file)
+        input.skip(100)
+        def hash = mapped.hash(input)
+
+        then:
+        input.read() == -1
+        hash == buffered.hash(new ByteArrayInputStream(new byte[900]))
+
+        cleanup:
+        input?.close()
+    }
+
+    def "reads small files through a buffer"() {
+        def file = tmpDir.file("file.bin")
+        file.bytes = new byte[10]
+        def hasher = new DefaultStreamHasher(new DefaultContentHasherFactory(), 100)
+
+        when:
+        def input = new FileInputStream(file)
+        def hash = hasher.hash(input)
+
+        then:
+        input.read() == -1
+        hash == new DefaultStreamHasher(new DefaultContentHasherFactory(), -1).hash(new ByteArrayInputStream(new byte[10]))
+
+        cleanup:
+        input?.close()
+    }
+}
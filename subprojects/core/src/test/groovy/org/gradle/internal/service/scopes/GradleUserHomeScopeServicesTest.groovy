@@ -43,6 +43,7 @@ import org.gradle.internal.classpath.CachedClasspathTransformer
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.ParallelismConfigurationManager
 import org.gradle.internal.event.ListenerManager
+import org.gradle.internal.filewatch.FileWatcherFactory
 import org.gradle.internal.hash.ContentHasherFactory
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.StreamHasher
@@ -118,6 +119,7 @@ class GradleUserHomeScopeServicesTest extends Specification {
         expectParentServiceLocated(DirectoryFileTreeFactory)
         expectParentServiceLocated(ContentHasherFactory)
         expectParentServiceLocated(StreamHasher)
+        expectParentServiceLocated(FileWatcherFactory)
 
         expect:
         findsAndCachesService(serviceType)
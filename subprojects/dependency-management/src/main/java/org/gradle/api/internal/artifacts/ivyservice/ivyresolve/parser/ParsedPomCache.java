@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
+import org.w3c.dom.Document;
+
+/**
+ * Keeps the parsed documents of the parent POMs and imported BOMs used in a build session, keyed by the hash of their content,
+ * so that a parent or BOM shared by many modules is parsed only once.
+ *
+ * <p>A DOM document is not thread-safe, even for reading, and {@link PomReader} modifies the document it reads. So each caller
+ * gets its own copy of the cached document, which is much cheaper than parsing the POM and the entity declarations injected into it.</p>
+ */
+public class ParsedPomCache {
+    private static final int MAX_DOCUMENTS = 500;
+
+    private final FileHasher fileHasher;
+    private final Cache<HashCode, Document> documents = CacheBuilder.newBuilder().maximumSize(MAX_DOCUMENTS).softValues().build();
+
+    public ParsedPomCache(FileHasher fileHasher) {
+        this.fileHasher = fileHasher;
+    }
+
+    /**
+     * Returns a parsed copy of the given POM, which the caller is free to modify.
+     */
+    public Document parse(LocallyAvailableExternalResource resource) {
+        HashCode contentHash = fileHasher.hash(resource.getFile());
+        Document document = documents.getIfPresent(contentHash);
+        if (document == null) {
+            // Another thread may parse the same POM concurrently, either document can be kept
+            document = PomReader.parse(resource);
+            documents.put(contentHash, document);
+        }
+        Document copy;
+        synchronized (document) {
+            copy = (Document) document.cloneNode(true);
+        }
+        // Another file with the same content may have been parsed
+        copy.setDocumentURI(resource.getFile().toURI().toASCIIString());
+        return copy;
+    }
+}
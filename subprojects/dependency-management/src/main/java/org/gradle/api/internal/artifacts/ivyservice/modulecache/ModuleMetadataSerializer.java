@@ -19,12 +19,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
+import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.VersionConstraint;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.attributes.AttributeContainer;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
-import org.gradle.api.internal.artifacts.ModuleComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint;
 import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DefaultExcludeRuleConverter;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.ExcludeRuleConverter;
@@ -38,6 +40,7 @@ import org.gradle.internal.component.external.descriptor.DefaultExclude;
 import org.gradle.internal.component.external.descriptor.MavenScope;
 import org.gradle.internal.component.external.model.ComponentVariant;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
 import org.gradle.internal.component.external.model.IvyDependencyDescriptor;
 import org.gradle.internal.component.external.model.IvyModuleResolveMetadata;
 import org.gradle.internal.component.external.model.MavenDependencyDescriptor;
@@ -58,17 +61,31 @@ import org.gradle.internal.serialize.Encoder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Reads and writes the module metadata stored in the module metadata cache.
+ *
+ * <p>Each entry carries its own string table: the first occurrence of a string is written in full, and later occurrences are written as a reference to it.
+ * Configuration names, groups and versions are repeated many times in a typical descriptor, so this keeps the entries small and avoids decoding the same string
+ * over and over. Group and module names are canonicalized through the {@link ImmutableModuleIdentifierFactory} when read, so that the metadata of all
+ * the modules loaded in a build shares a single instance of each of them.</p>
+ *
+ * <p>When changing the format, bump the version of {@link org.gradle.api.internal.artifacts.ivyservice.CacheLayout#META_DATA}.</p>
+ */
 public class ModuleMetadataSerializer {
     private static final byte TYPE_IVY = 1;
     private static final byte TYPE_MAVEN = 2;
 
-    private static final ModuleComponentSelectorSerializer COMPONENT_SELECTOR_SERIALIZER = new ModuleComponentSelectorSerializer();
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int FIRST_STRING_REFERENCE = 2;
+
     private final MavenMutableModuleMetadataFactory mavenMetadataFactory;
     private final IvyMutableModuleMetadataFactory ivyMetadataFactory;
     private final AttributeContainerSerializer attributeContainerSerializer;
@@ -90,6 +107,7 @@ public class ModuleMetadataSerializer {
     private static class Writer {
         private final Encoder encoder;
         private final AttributeContainerSerializer attributeContainerSerializer;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
 
         private Writer(Encoder encoder, AttributeContainerSerializer attributeContainerSerializer) {
             this.encoder = encoder;
@@ -120,7 +138,7 @@ public class ModuleMetadataSerializer {
         private void writeVariants(ModuleComponentResolveMetadata metadata) throws IOException {
             encoder.writeSmallInt(metadata.getVariants().size());
             for (ComponentVariant variant : metadata.getVariants()) {
-                encoder.writeString(variant.getName());
+                writeString(variant.getName());
                 writeAttributes(variant.getAttributes());
                 writeVariantDependencies(variant.getDependencies());
                 writeVariantConstraints(variant.getDependencyConstraints());
@@ -131,16 +149,16 @@ public class ModuleMetadataSerializer {
         private void writeVariantConstraints(ImmutableList<? extends ComponentVariant.DependencyConstraint> constraints) throws IOException {
             encoder.writeSmallInt(constraints.size());
             for (ComponentVariant.DependencyConstraint constraint : constraints) {
-                COMPONENT_SELECTOR_SERIALIZER.write(encoder, constraint.getGroup(), constraint.getModule(), constraint.getVersionConstraint());
-                encoder.writeNullableString(constraint.getReason());
+                writeSelector(constraint.getGroup(), constraint.getModule(), constraint.getVersionConstraint());
+                writeNullableString(constraint.getReason());
             }
         }
 
         private void writeVariantDependencies(List<? extends ComponentVariant.Dependency> dependencies) throws IOException {
             encoder.writeSmallInt(dependencies.size());
             for (ComponentVariant.Dependency dependency : dependencies) {
-                COMPONENT_SELECTOR_SERIALIZER.write(encoder, dependency.getGroup(), dependency.getModule(), dependency.getVersionConstraint());
-                encoder.writeNullableString(dependency.getReason());
+                writeSelector(dependency.getGroup(), dependency.getModule(), dependency.getVersionConstraint());
+                writeNullableString(dependency.getReason());
                 writeVariantDependencyExcludes(dependency.getExcludes());
             }
         }
@@ -160,8 +178,8 @@ public class ModuleMetadataSerializer {
         private void writeVariantFiles(List<? extends ComponentVariant.File> files) throws IOException {
             encoder.writeSmallInt(files.size());
             for (ComponentVariant.File file : files) {
-                encoder.writeString(file.getName());
-                encoder.writeString(file.getUri());
+                writeString(file.getName());
+                writeString(file.getUri());
             }
         }
 
@@ -181,7 +199,7 @@ public class ModuleMetadataSerializer {
         private void writeSharedInfo(ModuleComponentResolveMetadata metadata) throws IOException {
             encoder.writeBinary(metadata.getContentHash().asByteArray());
             encoder.writeBoolean(metadata.isMissing());
-            encoder.writeString(metadata.getStatus());
+            writeString(metadata.getStatus());
         }
 
         private void writeId(ModuleComponentIdentifier componentIdentifier) throws IOException {
@@ -246,7 +264,7 @@ public class ModuleMetadataSerializer {
         }
 
         private void writeIvyDependency(IvyDependencyDescriptor ivyDependency) throws IOException {
-            COMPONENT_SELECTOR_SERIALIZER.write(encoder, ivyDependency.getSelector());
+            writeSelector(ivyDependency.getSelector());
             writeDependencyConfigurationMapping(ivyDependency);
             writeArtifacts(ivyDependency.getDependencyArtifacts());
             writeExcludeRules(ivyDependency.getAllExcludes());
@@ -278,7 +296,7 @@ public class ModuleMetadataSerializer {
         }
 
         private void writeMavenDependency(MavenDependencyDescriptor mavenDependency) throws IOException {
-            COMPONENT_SELECTOR_SERIALIZER.write(encoder, mavenDependency.getSelector());
+            writeSelector(mavenDependency.getSelector());
             writeNullableArtifact(mavenDependency.getDependencyArtifact());
             writeMavenExcludeRules(mavenDependency.getAllExcludes());
             encoder.writeSmallInt(mavenDependency.getScope().ordinal());
@@ -305,16 +323,41 @@ public class ModuleMetadataSerializer {
             }
         }
 
+        private void writeSelector(ModuleComponentSelector selector) throws IOException {
+            writeSelector(selector.getGroup(), selector.getModule(), selector.getVersionConstraint());
+        }
+
+        private void writeSelector(String group, String module, VersionConstraint versionConstraint) throws IOException {
+            writeString(group);
+            writeString(module);
+            writeString(versionConstraint.getPreferredVersion());
+            writeStringList(versionConstraint.getRejectedVersions());
+        }
+
         private void writeCount(int i) throws IOException {
             encoder.writeSmallInt(i);
         }
 
         private void writeString(String str) throws IOException {
-            encoder.writeString(str);
+            if (str == null) {
+                throw new IllegalArgumentException("Cannot write a null string.");
+            }
+            writeNullableString(str);
         }
 
         private void writeNullableString(String str) throws IOException {
-            encoder.writeNullableString(str);
+            if (str == null) {
+                encoder.writeSmallInt(NULL_STRING);
+                return;
+            }
+            Integer index = strings.get(str);
+            if (index == null) {
+                strings.put(str, strings.size());
+                encoder.writeSmallInt(NEW_STRING);
+                encoder.writeString(str);
+            } else {
+                encoder.writeSmallInt(FIRST_STRING_REFERENCE + index);
+            }
         }
 
         private void writeBoolean(boolean b) throws IOException {
@@ -353,6 +396,7 @@ public class ModuleMetadataSerializer {
         private ModuleComponentIdentifier id;
         private ModuleVersionIdentifier mvi;
         private ImmutableAttributes attributes;
+        private final List<String> strings = new ArrayList<String>();
 
         private Reader(Decoder decoder,
                        ImmutableModuleIdentifierFactory moduleIdentifierFactory,
@@ -382,7 +426,7 @@ public class ModuleMetadataSerializer {
         private void readSharedInfo(MutableModuleComponentResolveMetadata metadata) throws IOException {
             metadata.setContentHash(new HashValue(decoder.readBinary()));
             metadata.setMissing(decoder.readBoolean());
-            metadata.setStatus(decoder.readString());
+            metadata.setStatus(readString());
         }
 
         private MutableModuleComponentResolveMetadata readMaven() throws IOException {
@@ -401,7 +445,7 @@ public class ModuleMetadataSerializer {
         private void readVariants(MutableModuleComponentResolveMetadata metadata) throws IOException {
             int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                String name = decoder.readString();
+                String name = readString();
                 ImmutableAttributes attributes = readAttributes();
                 MutableComponentVariant variant = metadata.addVariant(name, attributes);
                 readVariantDependencies(variant);
@@ -417,8 +461,8 @@ public class ModuleMetadataSerializer {
         private void readVariantDependencies(MutableComponentVariant variant) throws IOException {
             int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                ModuleComponentSelector selector = COMPONENT_SELECTOR_SERIALIZER.read(decoder);
-                String reason = decoder.readNullableString();
+                ModuleComponentSelector selector = readSelector();
+                String reason = readNullableString();
                 ImmutableList<ExcludeMetadata> excludes = readVariantDependencyExcludes();
                 variant.addDependency(selector.getGroup(), selector.getModule(), selector.getVersionConstraint(), excludes, reason);
             }
@@ -427,8 +471,8 @@ public class ModuleMetadataSerializer {
         private void readVariantConstraints(MutableComponentVariant variant) throws IOException {
             int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                ModuleComponentSelector selector = COMPONENT_SELECTOR_SERIALIZER.read(decoder);
-                String reason = decoder.readNullableString();
+                ModuleComponentSelector selector = readSelector();
+                String reason = readNullableString();
                 variant.addDependencyConstraint(selector.getGroup(), selector.getModule(), selector.getVersionConstraint(), reason);
             }
         }
@@ -447,7 +491,7 @@ public class ModuleMetadataSerializer {
         private void readVariantFiles(MutableComponentVariant variant) throws IOException {
             int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                variant.addFile(decoder.readString(), decoder.readString());
+                variant.addFile(readString(), readString());
             }
         }
 
@@ -469,13 +513,19 @@ public class ModuleMetadataSerializer {
         }
 
         private void readInfoSection() throws IOException {
-            id = readId();
-            mvi = moduleIdentifierFactory.moduleWithVersion(id.getGroup(), id.getModule(), id.getVersion());
+            mvi = moduleIdentifierFactory.moduleWithVersion(readModule(), readString());
+            id = DefaultModuleComponentIdentifier.newId(mvi);
             attributes = readAttributes();
         }
 
-        private ModuleComponentIdentifier readId() throws IOException {
-            return DefaultModuleComponentIdentifier.newId(readString(), readString(), readString());
+        private ModuleIdentifier readModule() throws IOException {
+            return moduleIdentifierFactory.module(readString(), readString());
+        }
+
+        private ModuleComponentSelector readSelector() throws IOException {
+            ModuleIdentifier module = readModule();
+            VersionConstraint versionConstraint = new DefaultImmutableVersionConstraint(readString(), readStringList());
+            return DefaultModuleComponentSelector.newSelector(module.getGroup(), module.getName(), versionConstraint);
         }
 
         private Map<NamespaceId, String> readExtraInfo() throws IOException {
@@ -527,7 +577,7 @@ public class ModuleMetadataSerializer {
         }
 
         private IvyDependencyDescriptor readIvyDependency() throws IOException {
-            ModuleComponentSelector requested = COMPONENT_SELECTOR_SERIALIZER.read(decoder);
+            ModuleComponentSelector requested = readSelector();
             SetMultimap<String, String> configMappings = readDependencyConfigurationMapping();
             List<Artifact> artifacts = readDependencyArtifactDescriptors();
             List<Exclude> excludes = readDependencyExcludes();
@@ -579,12 +629,11 @@ public class ModuleMetadataSerializer {
         }
 
         private DefaultExclude readExcludeRule() throws IOException {
-            String moduleOrg = readString();
-            String moduleName = readString();
+            ModuleIdentifier module = readModule();
             IvyArtifactName artifactName = readNullableArtifact();
             String[] confs = readStringArray();
             String matcher = readNullableString();
-            return new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher);
+            return new DefaultExclude(module, artifactName, confs, matcher);
         }
 
         private IvyArtifactName readNullableArtifact() throws IOException {
@@ -610,7 +659,7 @@ public class ModuleMetadataSerializer {
         }
 
         private MavenDependencyDescriptor readMavenDependency() throws IOException {
-            ModuleComponentSelector requested = COMPONENT_SELECTOR_SERIALIZER.read(decoder);
+            ModuleComponentSelector requested = readSelector();
             IvyArtifactName artifactName = readNullableArtifact();
             List<ExcludeMetadata> mavenExcludes = readMavenDependencyExcludes();
             MavenScope scope = MavenScope.values()[decoder.readSmallInt()];
@@ -622,9 +671,7 @@ public class ModuleMetadataSerializer {
             int len = readCount();
             List<ExcludeMetadata> result = Lists.newArrayListWithCapacity(len);
             for (int i = 0; i < len; i++) {
-                String moduleOrg = readString();
-                String moduleName = readString();
-                DefaultExclude rule = new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName));
+                DefaultExclude rule = new DefaultExclude(readModule());
                 result.add(rule);
             }
             return result;
@@ -635,11 +682,24 @@ public class ModuleMetadataSerializer {
         }
 
         private String readString() throws IOException {
-            return decoder.readString();
+            String str = readNullableString();
+            if (str == null) {
+                throw new IllegalStateException("Unexpected null string found.");
+            }
+            return str;
         }
 
         private String readNullableString() throws IOException {
-            return decoder.readNullableString();
+            int index = decoder.readSmallInt();
+            if (index == NULL_STRING) {
+                return null;
+            }
+            if (index == NEW_STRING) {
+                String str = decoder.readString();
+                strings.add(str);
+                return str;
+            }
+            return strings.get(index - FIRST_STRING_REFERENCE);
         }
 
         private boolean readBoolean() throws IOException {
@@ -46,10 +46,10 @@ class CacheLayoutTest extends Specification {
         CacheLayout cacheLayout = CacheLayout.META_DATA
 
         then:
-        cacheLayout.key == 'metadata-2.49'
-        cacheLayout.version == VersionNumber.parse("2.49.0")
-        cacheLayout.formattedVersion == '2.49'
-        cacheLayout.getPath(new File('some/dir')) == new File('some/dir/metadata-2.49')
+        cacheLayout.key == 'metadata-2.50'
+        cacheLayout.version == VersionNumber.parse("2.50.0")
+        cacheLayout.formattedVersion == '2.50'
+        cacheLayout.getPath(new File('some/dir')) == new File('some/dir/metadata-2.50')
     }
 
     def "use transforms layout"() {
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ParsedPomCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def fileHasher = { File file -> Hashing.md5().hashBytes(file.bytes) } as FileHasher
+    def cache = new ParsedPomCache(fileHasher)
+    def fileRepository = TestFiles.fileRepository()
+
+    def pom = """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+</project>
+"""
+
+    def "parses POM with the same content only once"() {
+        def pomFile = tmpDir.file("first.pom") << pom
+        def otherPomFile = tmpDir.file("second.pom") << pom
+        def otherResource = Mock(LocallyAvailableExternalResource)
+
+        when:
+        def document = cache.parse(fileRepository.resource(pomFile))
+        def otherDocument = cache.parse(otherResource)
+
+        then:
+        _ * otherResource.getFile() >> otherPomFile
+        0 * otherResource._
+
+        and:
+        document.documentURI == pomFile.toURI().toASCIIString()
+        otherDocument.documentURI == otherPomFile.toURI().toASCIIString()
+        otherDocument.documentElement.nodeName == "project"
+    }
+
+    def "returns a copy of the cached document"() {
+        def pomFile = tmpDir.file("first.pom") << pom
+        def resource = fileRepository.resource(pomFile)
+
+        when:
+        def document = cache.parse(resource)
+        document.documentElement.appendChild(document.createElement("packaging"))
+
+        then:
+        !document.is(cache.parse(resource))
+        cache.parse(resource).documentElement.getElementsByTagName("packaging").length == 0
+    }
+
+    def "parses POM again when its content changes"() {
+        def pomFile = tmpDir.file("first.pom") << pom
+        cache.parse(fileRepository.resource(pomFile))
+
+        when:
+        pomFile.text = pom.replace("version-one", "version-two")
+        def reader = new PomReader(cache.parse(fileRepository.resource(pomFile)), Mock(ImmutableModuleIdentifierFactory), [:])
+
+        then:
+        reader.version == "version-two"
+    }
+}
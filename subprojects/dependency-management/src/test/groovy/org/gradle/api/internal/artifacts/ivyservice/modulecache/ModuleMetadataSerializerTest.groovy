@@ -90,6 +90,24 @@ class ModuleMetadataSerializerTest extends Specification {
 
     }
 
+    def "group and module names are shared between entries read from the cache"() {
+        given:
+        def sample = sampleFiles().find { it.parentFile.name == 'pom' && !parse(it).dependencies.empty }
+        def bytes = serialize(parse(sample))
+
+        when:
+        def first = deserialize(bytes).asImmutable()
+        def second = deserialize(bytes).asImmutable()
+
+        then:
+        first.componentId.group.is(second.componentId.group)
+        first.componentId.module.is(second.componentId.module)
+        [first.dependencies, second.dependencies].transpose().each { a, b ->
+            assert a.selector.group.is(b.selector.group)
+            assert a.selector.module.is(b.selector.module)
+        }
+    }
+
     private MutableModuleComponentResolveMetadata deserialize(byte[] serializedForm) {
         serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serializedForm)), moduleIdentifierFactory)
     }
@@ -146,7 +146,7 @@ public class DefaultGradleDistribution implements GradleDistribution {
 
     public VersionNumber getArtifactCacheLayoutVersion() {
         if (isSameOrNewer("4.6-rc-1")) {
-            return VersionNumber.parse("2.49");
+            return VersionNumber.parse("2.50");
         } else if (isSameOrNewer("4.5-rc-1")) {
             return VersionNumber.parse("2.48");
         } else if (isSameOrNewer("4.4-rc-1")) {
@@ -17,8 +17,12 @@
 package org.gradle.tooling.internal.provider;
 
 import org.gradle.StartParameter;
+import org.gradle.api.internal.changedetection.state.FileSystemChangeTracker;
 import org.gradle.initialization.BuildRequestContext;
 import org.gradle.initialization.SessionLifecycleListener;
+import org.gradle.initialization.layout.BuildLayout;
+import org.gradle.initialization.layout.BuildLayoutConfiguration;
+import org.gradle.initialization.layout.BuildLayoutFactory;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.invocation.BuildAction;
@@ -51,6 +55,7 @@ public class ServicesSetupBuildActionExecuter implements BuildExecuter {
                 actionParameters.getInjectedPluginClasspath()
             );
             try {
+                trackFileSystemChanges(startParameter, buildSessionScopeServices);
                 SessionLifecycleListener sessionLifecycleListener = buildSessionScopeServices.get(ListenerManager.class).getBroadcaster(SessionLifecycleListener.class);
                 try {
                     sessionLifecycleListener.afterStart();
@@ -65,4 +70,10 @@ public class ServicesSetupBuildActionExecuter implements BuildExecuter {
             userHomeServiceRegistry.release(userHomeServices);
         }
     }
+
+    private void trackFileSystemChanges(StartParameter startParameter, ServiceRegistry buildSessionScopeServices) {
+        // Start tracking before anything in the build is snapshotted, so that state for the build can be retained for the next build
+        BuildLayout buildLayout = buildSessionScopeServices.get(BuildLayoutFactory.class).getLayoutFor(new BuildLayoutConfiguration(startParameter));
+        buildSessionScopeServices.get(FileSystemChangeTracker.class).track(buildLayout.getRootDirectory());
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares the file backed and the memory mapped block stores of {@link BTreePersistentIndexedCache}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BlockStoreBenchmark {
+    private static final int ENTRIES = 10000;
+
+    @Param({"false", "true"})
+    boolean memoryMapped;
+
+    File tempDir;
+    BTreePersistentIndexedCache<String, byte[]> cache;
+    Random random;
+    int counter;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("block-store-benchmark").toFile();
+        cache = new BTreePersistentIndexedCache<String, byte[]>(new File(tempDir, "cache.bin"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, memoryMapped);
+        byte[] value = new byte[256];
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put("key" + i, value);
+        }
+        random = new Random(1);
+        counter = ENTRIES;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        cache.close();
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void randomRead(Blackhole bh) {
+        bh.consume(cache.get("key" + random.nextInt(ENTRIES)));
+    }
+
+    @Benchmark
+    public void write() {
+        cache.put("key" + counter++, new byte[256]);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstructured;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentIndexedStore;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares the B-tree and the log structured persistent indexed caches, with values of the size of a typical task history entry.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class IndexedStoreBenchmark {
+    private static final int ENTRIES = 10000;
+    private static final int VALUE_SIZE = 4096;
+
+    @Param({"btree", "log"})
+    String store;
+
+    File tempDir;
+    File cacheFile;
+    PersistentIndexedStore<String, byte[]> cache;
+    Random random;
+    byte[] value;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("indexed-store-benchmark").toFile();
+        cacheFile = new File(tempDir, "cache.bin");
+        random = new Random(1);
+        value = new byte[VALUE_SIZE];
+        cache = open();
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put("key" + i, value);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        cache.close();
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void update() {
+        random.nextBytes(value);
+        cache.put("key" + random.nextInt(ENTRIES), value);
+    }
+
+    @Benchmark
+    public void randomRead(Blackhole bh) {
+        bh.consume(cache.get("key" + random.nextInt(ENTRIES)));
+    }
+
+    @Benchmark
+    public void reopen(Blackhole bh) {
+        cache.close();
+        cache = open();
+        bh.consume(cache.get("key0"));
+    }
+
+    private PersistentIndexedStore<String, byte[]> open() {
+        if (store.equals("log")) {
+            return new LogStructuredPersistentIndexedCache<String, byte[]>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+        }
+        return new BTreePersistentIndexedCache<String, byte[]>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+    }
+}
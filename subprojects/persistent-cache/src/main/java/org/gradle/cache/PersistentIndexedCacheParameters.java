@@ -21,11 +21,23 @@ import org.gradle.internal.serialize.Serializer;
 import javax.annotation.Nullable;
 
 public class PersistentIndexedCacheParameters<K, V> {
+    /**
+     * The system property to make the caches that are read on every up-to-date check {@link #memoryMapped(boolean) memory mapped}.
+     */
+    public static final String MEMORY_MAPPED_PROPERTY = "org.gradle.unsafe.cache.memory-mapped";
+
+    /**
+     * The system property to make the task history caches {@link #logStructured(boolean) log structured}.
+     */
+    public static final String LOG_STRUCTURED_PROPERTY = "org.gradle.unsafe.cache.log-structured";
+
     private static final BaseSerializerFactory SERIALIZER_FACTORY = new BaseSerializerFactory();
     private final String cacheName;
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private boolean memoryMapped;
+    private boolean logStructured;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -67,4 +79,30 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Whether to access the cache file through memory mapped regions. This makes reads cheaper for caches that are read often, at the cost of address space.
+     */
+    public PersistentIndexedCacheParameters<K, V> memoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    public boolean isLogStructured() {
+        return logStructured;
+    }
+
+    /**
+     * Whether to append each update to the end of the cache file instead of updating a B-tree in place. This makes updates cheaper for caches that are
+     * updated often, at the cost of reading the whole file when the cache is opened. The cache uses a different file, so switching discards the existing entries.
+     * Takes precedence over {@link #memoryMapped(boolean)}.
+     */
+    public PersistentIndexedCacheParameters<K, V> logStructured(boolean logStructured) {
+        this.logStructured = logStructured;
+        return this;
+    }
 }
@@ -21,16 +21,41 @@ import org.gradle.cache.AsyncCacheAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Applies the updates to a cache on the given {@link AsyncCacheAccess}. The pending updates of each cache are kept in their own queue, keyed by the entry to update,
+ * so that repeated updates of an entry are written once, and reading an entry with a pending update does not wait for the worker.
+ * The worker is given a single task per cache that writes all of the updates pending at the time it runs.
+ */
 public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentIndexedCache<K, V> {
     private final AsyncCacheAccess asyncCacheAccess;
     private final MultiProcessSafePersistentIndexedCache<K, V> persistentCache;
+    private final int maxPendingUpdates;
+    private final Object lock = new Object();
+    private final Map<K, PendingUpdate<V>> pendingUpdates = new LinkedHashMap<K, PendingUpdate<V>>();
+    private final Runnable writePendingUpdates = new Runnable() {
+        @Override
+        public void run() {
+            writePendingUpdates();
+        }
+    };
+    private boolean writeQueued;
 
     public AsyncCacheAccessDecoratedCache(AsyncCacheAccess asyncCacheAccess, MultiProcessSafePersistentIndexedCache<K, V> persistentCache) {
+        this(asyncCacheAccess, persistentCache, Math.min(4000, new HeapProportionalCacheSizer().scaleCacheSize(40000)));
+    }
+
+    AsyncCacheAccessDecoratedCache(AsyncCacheAccess asyncCacheAccess, MultiProcessSafePersistentIndexedCache<K, V> persistentCache, int maxPendingUpdates) {
         this.asyncCacheAccess = asyncCacheAccess;
         this.persistentCache = persistentCache;
+        this.maxPendingUpdates = maxPendingUpdates;
     }
 
     @Override
@@ -41,6 +66,12 @@ public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsy
     @Nullable
     @Override
     public V get(final K key) {
+        synchronized (lock) {
+            PendingUpdate<V> pendingUpdate = pendingUpdates.get(key);
+            if (pendingUpdate != null) {
+                return pendingUpdate.value;
+            }
+        }
         return asyncCacheAccess.read(new Factory<V>() {
             @Override
             public V create() {
@@ -56,30 +87,87 @@ public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsy
 
     @Override
     public void putLater(final K key, final V value, final Runnable completion) {
-        asyncCacheAccess.enqueue(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    persistentCache.put(key, value);
-                } finally {
-                    completion.run();
-                }
-            }
-        });
+        addPendingUpdate(key, value, false, completion);
     }
 
     @Override
     public void removeLater(final K key, final Runnable completion) {
-        asyncCacheAccess.enqueue(new Runnable() {
-            @Override
-            public void run() {
-                try {
+        addPendingUpdate(key, null, true, completion);
+    }
+
+    private void addPendingUpdate(K key, @Nullable V value, boolean removal, Runnable completion) {
+        boolean queueWrite;
+        synchronized (lock) {
+            PendingUpdate<V> pendingUpdate = pendingUpdates.get(key);
+            if (pendingUpdate == null) {
+                while (pendingUpdates.size() >= maxPendingUpdates) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                pendingUpdate = pendingUpdates.get(key);
+                if (pendingUpdate == null) {
+                    pendingUpdate = new PendingUpdate<V>();
+                    pendingUpdates.put(key, pendingUpdate);
+                }
+            }
+            pendingUpdate.replace(value, removal, completion);
+            queueWrite = !writeQueued;
+            writeQueued = true;
+        }
+        if (queueWrite) {
+            asyncCacheAccess.enqueue(writePendingUpdates);
+        }
+    }
+
+    private void writePendingUpdates() {
+        List<Map.Entry<K, PendingUpdate<V>>> updates;
+        synchronized (lock) {
+            writeQueued = false;
+            updates = new ArrayList<Map.Entry<K, PendingUpdate<V>>>(pendingUpdates.entrySet());
+        }
+        Throwable failure = null;
+        for (Map.Entry<K, PendingUpdate<V>> entry : updates) {
+            K key = entry.getKey();
+            PendingUpdate<V> pendingUpdate = entry.getValue();
+            List<Runnable> completions;
+            V value;
+            boolean removal;
+            int version;
+            synchronized (lock) {
+                completions = pendingUpdate.takeCompletions();
+                value = pendingUpdate.value;
+                removal = pendingUpdate.removal;
+                version = pendingUpdate.version;
+            }
+            try {
+                if (removal) {
                     persistentCache.remove(key);
-                } finally {
+                } else {
+                    persistentCache.put(key, value);
+                }
+            } catch (Throwable t) {
+                if (failure == null) {
+                    failure = t;
+                }
+            } finally {
+                synchronized (lock) {
+                    // Keep an update that replaced the value while it was being written, it is written by the next task
+                    if (pendingUpdate.version == version) {
+                        pendingUpdates.remove(key);
+                        lock.notifyAll();
+                    }
+                }
+                for (Runnable completion : completions) {
                     completion.run();
                 }
             }
-        });
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
     }
 
     @Override
@@ -96,4 +184,24 @@ public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsy
     public void beforeLockRelease(FileLock.State currentCacheState) {
         persistentCache.beforeLockRelease(currentCacheState);
     }
+
+    private static class PendingUpdate<V> {
+        V value;
+        boolean removal;
+        int version;
+        List<Runnable> completions = new ArrayList<Runnable>();
+
+        void replace(@Nullable V value, boolean removal, Runnable completion) {
+            this.value = value;
+            this.removal = removal;
+            version++;
+            completions.add(completion);
+        }
+
+        List<Runnable> takeCompletions() {
+            List<Runnable> taken = completions;
+            completions = new ArrayList<Runnable>();
+            return taken;
+        }
+    }
 }
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A block store that accesses the cache file through memory mapped regions, so that reading or updating a block does not need a system call once its region is mapped.
+ * Uses the same file format as {@link FileBackedBlockStore}.
+ *
+ * <p>The file is mapped in regions of {@value #REGION_SIZE} bytes on demand. Blocks appended to the file are written through the file channel instead, so that the file
+ * does not grow past its content, and the last region is mapped again to cover them when they are read.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    static final int REGION_SIZE = 1024 * 1024;
+
+    private final File cacheFile;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private final BlockBuffer blockBuffer = new BlockBuffer();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+    private boolean cleared;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            currentFileSize = cleared ? 0 : file.length();
+            cleared = false;
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        regions.clear();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        regions.clear();
+        try {
+            file.setLength(0);
+        } catch (IOException e) {
+            // Some platforms do not allow truncating a file while regions of it are still mapped, so overwrite the file from the start instead
+            cleared = true;
+        }
+        currentFileSize = 0;
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Returns the region containing the given position, positioned at it. The region is remapped when the file has grown since it was mapped.
+     */
+    private MappedByteBuffer region(long pos) throws IOException {
+        int index = (int) (pos / REGION_SIZE);
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        long regionStart = (long) index * REGION_SIZE;
+        int offset = (int) (pos - regionStart);
+        MappedByteBuffer region = regions.get(index);
+        if (region == null || region.capacity() <= offset) {
+            int size = (int) Math.min(REGION_SIZE, currentFileSize - regionStart);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, size);
+            regions.set(index, region);
+        }
+        region.position(offset);
+        return region;
+    }
+
+    private void writeBytes(long pos, byte[] bytes, int length) throws IOException {
+        if (pos + length > currentFileSize) {
+            // Appending to the file, which cannot be done through a mapped region without growing the file past its content
+            channel.write(ByteBuffer.wrap(bytes, 0, length), pos);
+            currentFileSize = pos + length;
+            return;
+        }
+        int offset = 0;
+        while (offset < length) {
+            MappedByteBuffer region = region(pos + offset);
+            int count = Math.min(length - offset, region.remaining());
+            region.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    private class RegionInputStream extends InputStream {
+        private final long start;
+        private long pos;
+
+        RegionInputStream(long start) {
+            this.start = start;
+            this.pos = start;
+        }
+
+        long getBytesRead() {
+            return pos - start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            return region(pos++).get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            MappedByteBuffer region = region(pos);
+            int count = Math.min(length, region.remaining());
+            region.get(buffer, offset, count);
+            pos += count;
+            return count;
+        }
+    }
+
+    private static class BlockBuffer extends ByteArrayOutputStream {
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            blockBuffer.reset();
+            DataOutputStream outputStream = new DataOutputStream(blockBuffer);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            long bytesWritten = blockBuffer.size();
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+            writeBytes(pos, blockBuffer.getBuffer(), blockBuffer.size());
+
+            // Pad
+            if (currentFileSize < finalSize) {
+                if (file.length() < finalSize) {
+                    file.setLength(finalSize);
+                }
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            RegionInputStream input = new RegionInputStream(pos);
+            DataInputStream inputStream = new DataInputStream(input);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = input.getBytesRead();
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
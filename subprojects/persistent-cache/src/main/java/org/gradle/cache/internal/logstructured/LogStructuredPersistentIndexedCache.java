@@ -0,0 +1,386 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstructured;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.PersistentIndexedStore;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent indexed cache that appends every update to the end of its file, and keeps the position of the latest value of each key in memory.
+ * Values are never rewritten in place, so updating a value costs a single write to the end of the file regardless of how large the file is.
+ *
+ * <p>The file starts with a header, followed by one record per update:</p>
+ *
+ * <pre>
+ * int keyLength, int valueLength (-1 for a removal), byte[keyLength] key, byte[valueLength] value, int crc32
+ * </pre>
+ *
+ * <p>The index is rebuilt by reading the file when the cache is opened. A record that is incomplete or does not match its checksum, for example because
+ * the process was killed while writing it, ends the readable part of the file, and the file is truncated to the last complete record. When closing the cache,
+ * the file is compacted if more than half of it holds values that have since been replaced or removed. Compaction copies the latest records to a new file,
+ * which then replaces the old one.</p>
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements PersistentIndexedStore<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+
+    private static final int MAGIC = 0x474c5343;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int REMOVED = -1;
+    private static final long MIN_COMPACTION_WASTE = 1024 * 1024;
+
+    private final File cacheFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final long minCompactionWaste;
+    private final Map<Key, Entry> index = new HashMap<Key, Entry>();
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final CRC32 checksum = new CRC32();
+    private RandomAccessFile file;
+    private long end;
+    private long liveBytes;
+
+    public LogStructuredPersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(cacheFile, keySerializer, valueSerializer, MIN_COMPACTION_WASTE);
+    }
+
+    /**
+     * @param minCompactionWaste The number of bytes of replaced or removed values the file must contain before it is compacted.
+     */
+    public LogStructuredPersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, long minCompactionWaste) {
+        this.cacheFile = cacheFile;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.minCompactionWaste = minCompactionWaste;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + cacheFile.getName() + " (" + cacheFile + ")";
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        cacheFile.getParentFile().mkdirs();
+        file = new RandomAccessFile(cacheFile, "rw");
+        long length = file.length();
+        long validLength = length == 0 ? 0 : readIndex(length);
+        if (validLength < FILE_HEADER_SIZE) {
+            if (length > 0) {
+                LOGGER.warn("{} is corrupt. Discarding.", this);
+            }
+            index.clear();
+            liveBytes = 0;
+            file.setLength(0);
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            end = FILE_HEADER_SIZE;
+        } else {
+            if (validLength < length) {
+                LOGGER.warn("{} is corrupt after offset {}. Discarding the entries that follow.", this, validLength);
+                file.setLength(validLength);
+            }
+            end = validLength;
+        }
+    }
+
+    /**
+     * Reads the records of the file into the index, and returns the length of the readable part of the file.
+     */
+    private long readIndex(long length) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 64 * 1024));
+        long pos = 0;
+        try {
+            if (length < FILE_HEADER_SIZE || input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return 0;
+            }
+            pos = FILE_HEADER_SIZE;
+            byte[] header = new byte[RECORD_HEADER_SIZE];
+            byte[] buffer = new byte[8192];
+            while (pos < length) {
+                if (length - pos < RECORD_HEADER_SIZE + CHECKSUM_SIZE) {
+                    return pos;
+                }
+                input.readFully(header);
+                int keyLength = readInt(header, 0);
+                int valueLength = readInt(header, 4);
+                if (keyLength < 0 || valueLength < REMOVED) {
+                    return pos;
+                }
+                long size = recordSize(keyLength, valueLength);
+                if (size > length - pos) {
+                    return pos;
+                }
+                checksum.reset();
+                checksum.update(header);
+                byte[] key = new byte[keyLength];
+                input.readFully(key);
+                checksum.update(key);
+                int remaining = Math.max(valueLength, 0);
+                while (remaining > 0) {
+                    int count = Math.min(remaining, buffer.length);
+                    input.readFully(buffer, 0, count);
+                    checksum.update(buffer, 0, count);
+                    remaining -= count;
+                }
+                if (input.readInt() != (int) checksum.getValue()) {
+                    return pos;
+                }
+                if (valueLength == REMOVED) {
+                    removeFromIndex(new Key(key));
+                } else {
+                    addToIndex(new Key(key), new Entry(pos, keyLength, valueLength));
+                }
+                pos += size;
+            }
+            return pos;
+        } catch (EOFException e) {
+            // The file was truncated while reading it, keep the records read so far
+            return pos;
+        } finally {
+            input.close();
+        }
+    }
+
+    public V get(K key) {
+        try {
+            Entry entry = index.get(new Key(serialize(keySerializer, key)));
+            if (entry == null) {
+                return null;
+            }
+            byte[] value = new byte[entry.valueLength];
+            file.seek(entry.pos + RECORD_HEADER_SIZE + entry.keyLength);
+            file.readFully(value);
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(value)));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    public void put(K key, V value) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            byte[] valueBytes = serialize(valueSerializer, value);
+            long pos = append(keyBytes, valueBytes);
+            addToIndex(new Key(keyBytes), new Entry(pos, keyBytes.length, valueBytes.length));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    public void remove(K key) {
+        try {
+            Key indexKey = new Key(serialize(keySerializer, key));
+            if (index.containsKey(indexKey)) {
+                append(indexKey.bytes, null);
+                removeFromIndex(indexKey);
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        try {
+            try {
+                long waste = end - FILE_HEADER_SIZE - liveBytes;
+                if (waste >= minCompactionWaste && waste > liveBytes) {
+                    try {
+                        compact();
+                    } catch (IOException e) {
+                        // The file can still be used as is
+                        LOGGER.warn("Could not compact " + this, e);
+                    }
+                }
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long append(byte[] key, byte[] value) throws IOException {
+        recordBuffer.reset();
+        DataOutputStream output = new DataOutputStream(recordBuffer);
+        output.writeInt(key.length);
+        output.writeInt(value == null ? REMOVED : value.length);
+        output.write(key);
+        if (value != null) {
+            output.write(value);
+        }
+        checksum.reset();
+        checksum.update(recordBuffer.getBuffer(), 0, recordBuffer.size());
+        output.writeInt((int) checksum.getValue());
+
+        long pos = end;
+        file.seek(pos);
+        file.write(recordBuffer.getBuffer(), 0, recordBuffer.size());
+        end += recordBuffer.size();
+        return pos;
+    }
+
+    private void addToIndex(Key key, Entry entry) {
+        Entry previous = index.put(key, entry);
+        if (previous != null) {
+            liveBytes -= previous.size();
+        }
+        liveBytes += entry.size();
+    }
+
+    private void removeFromIndex(Key key) {
+        Entry previous = index.remove(key);
+        if (previous != null) {
+            liveBytes -= previous.size();
+        }
+    }
+
+    /**
+     * Copies the latest record of each key to a new file, in the order they appear in the current file, and replaces the current file with it.
+     */
+    private void compact() throws IOException {
+        LOGGER.debug("Compacting {}", this);
+        List<Entry> entries = new ArrayList<Entry>(index.values());
+        Collections.sort(entries, BY_POSITION);
+        File compactedFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".compact");
+        FileOutputStream fileOutput = new FileOutputStream(compactedFile);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput, 64 * 1024));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            byte[] buffer = new byte[8192];
+            for (Entry entry : entries) {
+                file.seek(entry.pos);
+                long remaining = entry.size();
+                while (remaining > 0) {
+                    int count = (int) Math.min(remaining, buffer.length);
+                    file.readFully(buffer, 0, count);
+                    output.write(buffer, 0, count);
+                    remaining -= count;
+                }
+            }
+            // Make sure the content is on disk before it replaces the current file, so that a crash cannot leave a partial file in its place
+            output.flush();
+            fileOutput.getFD().sync();
+        } finally {
+            output.close();
+        }
+        file.close();
+        Files.move(compactedFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16) | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    private static long recordSize(int keyLength, int valueLength) {
+        return RECORD_HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0) + CHECKSUM_SIZE;
+    }
+
+    private static final Comparator<Entry> BY_POSITION = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            return o1.pos < o2.pos ? -1 : (o1.pos == o2.pos ? 0 : 1);
+        }
+    };
+
+    private static class Key {
+        final byte[] bytes;
+        final int hashCode;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Entry {
+        final long pos;
+        final int keyLength;
+        final int valueLength;
+
+        Entry(long pos, int keyLength, int valueLength) {
+            this.pos = pos;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+
+        long size() {
+            return recordSize(keyLength, valueLength);
+        }
+    }
+
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.AsyncCacheAccess
+import org.gradle.cache.MultiProcessSafePersistentIndexedCache
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class AsyncCacheAccessDecoratedCacheTest extends Specification {
+    def queued = []
+    def asyncCacheAccess = new AsyncCacheAccess() {
+        @Override
+        void enqueue(Runnable task) {
+            queued << task
+        }
+
+        @Override
+        def <T> T read(Factory<T> task) {
+            return task.create()
+        }
+
+        @Override
+        void flush() {
+        }
+    }
+    def persistentCache = Mock(MultiProcessSafePersistentIndexedCache)
+    def cache = new AsyncCacheAccessDecoratedCache<String, String>(asyncCacheAccess, persistentCache, 2)
+
+    def "queues a single write task for updates of the cache"() {
+        def completion1 = Mock(Runnable)
+        def completion2 = Mock(Runnable)
+
+        when:
+        cache.putLater("a", "1", completion1)
+        cache.putLater("b", "2", completion2)
+
+        then:
+        queued.size() == 1
+        0 * _
+
+        when:
+        runQueued()
+
+        then:
+        1 * persistentCache.put("a", "1")
+
+        then:
+        1 * completion1.run()
+
+        then:
+        1 * persistentCache.put("b", "2")
+
+        then:
+        1 * completion2.run()
+        0 * _
+    }
+
+    def "writes the latest of repeated updates of an entry once"() {
+        def completion1 = Mock(Runnable)
+        def completion2 = Mock(Runnable)
+        def completion3 = Mock(Runnable)
+
+        when:
+        cache.putLater("a", "1", completion1)
+        cache.putLater("a", "2", completion2)
+        cache.removeLater("a", completion3)
+        runQueued()
+
+        then:
+        1 * persistentCache.remove("a")
+
+        then:
+        1 * completion1.run()
+        1 * completion2.run()
+        1 * completion3.run()
+        0 * _
+    }
+
+    def "reads pending update without reading the backing cache"() {
+        when:
+        cache.putLater("a", "1", {})
+        cache.removeLater("b", {})
+        def a = cache.get("a")
+        def b = cache.get("b")
+
+        then:
+        a == "1"
+        b == null
+        0 * persistentCache._
+
+        when:
+        runQueued()
+        def result = cache.get("a")
+
+        then:
+        result == "3"
+        1 * persistentCache.put("a", "1")
+        1 * persistentCache.remove("b")
+        1 * persistentCache.get("a") >> "3"
+    }
+
+    def "keeps an update made while the entry is being written"() {
+        when:
+        cache.putLater("a", "1", {})
+        runQueued()
+
+        then:
+        1 * persistentCache.put("a", "1") >> { cache.putLater("a", "2", {}) }
+
+        and:
+        cache.get("a") == "2"
+        queued.size() == 1
+
+        when:
+        runQueued()
+
+        then:
+        1 * persistentCache.put("a", "2")
+    }
+
+    def "runs completions and writes other entries when an update fails"() {
+        def failure = new RuntimeException()
+        def completion = Mock(Runnable)
+
+        when:
+        cache.putLater("a", "1", completion)
+        cache.putLater("b", "2", {})
+        runQueued()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        1 * persistentCache.put("a", "1") >> { throw failure }
+        1 * completion.run()
+        1 * persistentCache.put("b", "2")
+    }
+
+    private void runQueued() {
+        def tasks = new ArrayList(queued)
+        queued.clear()
+        tasks*.run()
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def cacheFile = tmpDir.file("cache.bin")
+
+    def "persists entries that span several regions"() {
+        given:
+        def cache = createCache(true)
+
+        when:
+        1000.times { cache.put("key" + it, value(it)) }
+
+        then:
+        cacheFile.length() > 2 * MappedFileBlockStore.REGION_SIZE
+        1000.times { assert cache.get("key" + it) == value(it) }
+
+        when:
+        cache.close()
+        cache = createCache(true)
+
+        then:
+        1000.times { assert cache.get("key" + it) == value(it) }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "does not grow the file past the last block"() {
+        given:
+        def cache = createCache(true)
+        cache.put("key", value(1))
+        cache.close()
+        def length = cacheFile.length()
+
+        when:
+        cache = createCache(true)
+        cache.put("key", value(1))
+        cache.close()
+
+        then:
+        length < MappedFileBlockStore.REGION_SIZE
+        cacheFile.length() == length
+    }
+
+    def "uses the same file format as the file backed store"() {
+        given:
+        def cache = createCache(writeMapped)
+        100.times { cache.put("key" + it, value(it)) }
+        cache.close()
+
+        when:
+        cache = createCache(!writeMapped)
+
+        then:
+        100.times { assert cache.get("key" + it) == value(it) }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+
+        where:
+        writeMapped << [true, false]
+    }
+
+    def "discards a cache file that is badly formed"() {
+        given:
+        cacheFile.text = "some junk"
+        def cache = createCache(true)
+
+        expect:
+        cache.get("key") == null
+
+        when:
+        cache.put("key", value(1))
+        cache.reset()
+
+        then:
+        cache.get("key") == value(1)
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "discards a truncated cache file"() {
+        given:
+        def cache = createCache(true)
+        cache.put("key", value(1))
+        cache.close()
+        def file = new RandomAccessFile(cacheFile, "rw")
+        file.setLength(file.length() - 10)
+        file.close()
+
+        when:
+        cache = createCache(true)
+
+        then:
+        cache.get("key") == null
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    private BTreePersistentIndexedCache<String, byte[]> createCache(boolean memoryMapped) {
+        new BTreePersistentIndexedCache<String, byte[]>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, memoryMapped)
+    }
+
+    private static byte[] value(int seed) {
+        def bytes = new byte[3000]
+        Arrays.fill(bytes, (byte) seed)
+        bytes
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstructured
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class LogStructuredPersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def cacheFile = tmpDir.file("cache.bin")
+    LogStructuredPersistentIndexedCache<String, String> cache
+
+    def cleanup() {
+        cache?.close()
+    }
+
+    def "returns null for unknown entry"() {
+        given:
+        open()
+
+        expect:
+        cache.get("unknown") == null
+    }
+
+    def "persists added, replaced and removed entries"() {
+        given:
+        open()
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.put("c", "3")
+        cache.put("b", "22")
+        cache.remove("c")
+        cache.remove("unknown")
+
+        expect:
+        cache.get("a") == "1"
+        cache.get("b") == "22"
+        cache.get("c") == null
+
+        when:
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == "22"
+        cache.get("c") == null
+    }
+
+    def "only appends to the file when updating an entry"() {
+        given:
+        open()
+        cache.put("a", "value")
+        def length = cacheFile.length()
+
+        when:
+        cache.put("a", "other")
+
+        then:
+        cacheFile.length() > length
+        cache.get("a") == "other"
+    }
+
+    @Unroll
+    def "discards a record that was written partially (#bytesMissing bytes missing)"() {
+        given:
+        open()
+        cache.put("a", "1")
+        cache.close()
+        def lengthBeforeLastRecord = cacheFile.length()
+        open()
+        cache.put("b", "2")
+        cache.close()
+        truncateBy(bytesMissing)
+
+        when:
+        open()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == null
+        cacheFile.length() == lengthBeforeLastRecord
+
+        when:
+        cache.put("c", "3")
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("c") == "3"
+
+        where:
+        bytesMissing << [1, 4, 5, 10, 13]
+    }
+
+    def "discards a record with a checksum that does not match, and the records that follow it"() {
+        given:
+        open()
+        cache.put("a", "1")
+        cache.close()
+        def length = cacheFile.length()
+        open()
+        cache.put("b", "2")
+        cache.put("c", "3")
+        cache.close()
+        overwriteByte(length + 8)
+
+        when:
+        open()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == null
+        cache.get("c") == null
+        cacheFile.length() == length
+    }
+
+    def "discards a record with invalid lengths"() {
+        given:
+        open()
+        cache.put("a", "1")
+        cache.close()
+        def length = cacheFile.length()
+        def content = cacheFile.bytes
+        cacheFile.withDataOutputStream { it.write(content); it.writeInt(-5); it.writeInt(-5); it.writeInt(0) }
+
+        when:
+        open()
+
+        then:
+        cache.get("a") == "1"
+        cacheFile.length() == length
+    }
+
+    def "discards file that is not a cache file"() {
+        given:
+        cacheFile.text = "some junk"
+
+        when:
+        open()
+        cache.put("a", "1")
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+    }
+
+    def "discards empty and truncated header"() {
+        given:
+        cacheFile.bytes = [0x47, 0x4c] as byte[]
+
+        when:
+        open()
+        cache.put("a", "1")
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+    }
+
+    def "compacts file on close when most of it holds replaced values"() {
+        given:
+        open(0)
+        100.times { cache.put("key" + (it % 10), "value" + it) }
+        cache.remove("key0")
+        def length = cacheFile.length()
+
+        when:
+        reopen(0)
+
+        then:
+        cacheFile.length() < length / 5
+        cache.get("key0") == null
+        (1..9).each { assert cache.get("key" + it) == "value" + (90 + it) }
+
+        when:
+        cache.put("key0", "new")
+        reopen(0)
+
+        then:
+        cache.get("key0") == "new"
+        cache.get("key1") == "value91"
+    }
+
+    def "does not compact file while little of it is wasted"() {
+        given:
+        open(0)
+        10.times { cache.put("key" + it, "value" + it) }
+        cache.put("key0", "other")
+        def length = cacheFile.length()
+
+        when:
+        reopen(0)
+
+        then:
+        cacheFile.length() == length
+    }
+
+    def "ignores file left behind by interrupted compaction"() {
+        given:
+        open()
+        cache.put("a", "1")
+        cache.close()
+        new File(cacheFile.parentFile, cacheFile.name + ".compact").text = "partial"
+
+        when:
+        open(0)
+        10.times { cache.put("a", "value" + it) }
+        reopen(0)
+
+        then:
+        cache.get("a") == "value9"
+    }
+
+    private void open(long minCompactionWaste = 1024 * 1024) {
+        cache = new LogStructuredPersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, minCompactionWaste)
+    }
+
+    private void reopen(long minCompactionWaste = 1024 * 1024) {
+        cache.close()
+        open(minCompactionWaste)
+    }
+
+    private void truncateBy(int bytes) {
+        def file = new RandomAccessFile(cacheFile, "rw")
+        try {
+            file.setLength(file.length() - bytes)
+        } finally {
+            file.close()
+        }
+    }
+
+    private void overwriteByte(long pos) {
+        def file = new RandomAccessFile(cacheFile, "rw")
+        try {
+            file.seek(pos)
+            def value = file.read()
+            file.seek(pos)
+            file.write(value ^ 0xff)
+        } finally {
+            file.close()
+        }
+    }
+}
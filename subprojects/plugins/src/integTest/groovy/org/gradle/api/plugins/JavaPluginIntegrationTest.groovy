@@ -76,4 +76,50 @@ class JavaPluginIntegrationTest extends AbstractIntegrationSpec {
         then:
         result.assertOutputContains("Gradle now uses separate output directories for each JVM language, but this build assumes a single directory for all classes from a source set.")
     }
+
+    def "tasks added by the plugin are visible when iterating the task container"() {
+        buildFile << """
+            apply plugin: 'java'
+
+            assert tasks.withType(Test).collect { it.name } == ['test']
+            assert tasks.withType(Javadoc).toList()*.name == ['javadoc']
+            assert tasks.findAll { it.name == 'buildNeeded' }.size() == 1
+            assert tasks.matching { it.name == 'buildDependents' }.collect { it.name } == ['buildDependents']
+        """
+
+        expect:
+        succeeds "help"
+    }
+
+    def "tasks added by the plugin are configured by all"() {
+        buildFile << """
+            apply plugin: 'java'
+
+            def configured = []
+            tasks.matching { it.name in ['test', 'javadoc'] }.all { configured << it.name }
+            assert configured.sort() == ['javadoc', 'test']
+            tasks.withType(Test).all { it.description = 'custom description' }
+            assert test.description == 'custom description'
+        """
+
+        expect:
+        succeeds "help"
+    }
+
+    def "filtering tasks by type only creates the registered tasks of that type"() {
+        buildFile << """
+            apply plugin: 'java'
+
+            def created = []
+            tasks.whenTaskAdded { created << it.name }
+            tasks.withType(Test) { }
+            assert created.contains('test')
+            assert !created.contains('javadoc')
+            assert !created.contains('buildNeeded')
+            assert !created.contains('buildDependents')
+        """
+
+        expect:
+        succeeds "help"
+    }
 }
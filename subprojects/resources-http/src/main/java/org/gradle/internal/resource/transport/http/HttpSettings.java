@@ -35,4 +35,14 @@ public interface HttpSettings {
     SslContextFactory getSslContextFactory();
 
     HostnameVerifier getHostnameVerifier();
+
+    /**
+     * The maximum number of connections to keep open, both in total and per host. A value of 0 or less uses the default.
+     */
+    int getMaxConnections();
+
+    /**
+     * How long an idle connection is kept open for reuse when the server does not specify a keep-alive timeout. A value of 0 or less keeps idle connections open indefinitely.
+     */
+    long getConnectionKeepAliveMs();
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.actor.Actor;
+import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.dispatch.DispatchException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Manages a set of parallel TestClassProcessors. Unlike {@link MaxNParallelTestClassProcessor}, test classes are queued and only handed to a processor once it has
+ * finished with its previous test class, so that a slow test class does not hold up the test classes behind it. This requires the processors to block in
+ * {@link TestClassProcessor#processTestClass(TestClassRunInfo)} until they are done with the test class.
+ *
+ * <p>Queued test classes are handed out longest first, based on their duration in a previous run. Test classes without a previous duration are handed out first,
+ * in the order they were found.</p>
+ */
+public class WorkStealingTestClassProcessor implements TestClassProcessor {
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final Object lock = new Object();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final Deque<TestClassProcessor> idleProcessors = new ArrayDeque<TestClassProcessor>();
+    private final List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private long queued;
+
+    /**
+     * @param previousDurations The duration of each test class in a previous run, in milliseconds, by test class name.
+     */
+    public WorkStealingTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        // Create a processor that processes events in its own thread
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        synchronized (lock) {
+            Long previousDuration = previousDurations.get(testClass.getTestClassName());
+            queue.add(new QueuedTestClass(testClass, previousDuration == null ? Long.MAX_VALUE : previousDuration, queued++));
+            if (idleProcessors.isEmpty() && processors.size() < maxProcessors) {
+                IdleNotifyingProcessor idleNotifyingProcessor = new IdleNotifyingProcessor(factory.create());
+                Actor actor = actorFactory.createActor(idleNotifyingProcessor);
+                TestClassProcessor processor = actor.getProxy(TestClassProcessor.class);
+                idleNotifyingProcessor.proxy = processor;
+                actors.add(actor);
+                processors.add(processor);
+                processor.startProcessing(resultProcessor);
+                idleProcessors.add(processor);
+            }
+            dispatchInsideLock();
+        }
+    }
+
+    private void dispatchInsideLock() {
+        while (!queue.isEmpty() && !idleProcessors.isEmpty()) {
+            idleProcessors.removeFirst().processTestClass(queue.poll().testClass);
+        }
+        lock.notifyAll();
+    }
+
+    private void processorIdle(TestClassProcessor processor) {
+        synchronized (lock) {
+            idleProcessors.add(processor);
+            dispatchInsideLock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            try {
+                while (!queue.isEmpty()) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        try {
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private class IdleNotifyingProcessor implements TestClassProcessor {
+        private final TestClassProcessor delegate;
+        private TestClassProcessor proxy;
+
+        IdleNotifyingProcessor(TestClassProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            delegate.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                delegate.processTestClass(testClass);
+            } finally {
+                processorIdle(proxy);
+            }
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        final TestClassRunInfo testClass;
+        final long previousDuration;
+        final long order;
+
+        QueuedTestClass(TestClassRunInfo testClass, long previousDuration, long order) {
+            this.testClass = testClass;
+            this.previousDuration = previousDuration;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(QueuedTestClass other) {
+            if (previousDuration != other.previousDuration) {
+                return previousDuration > other.previousDuration ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
+}
@@ -24,6 +24,8 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -45,13 +47,23 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final boolean waitForProcessedTestClasses;
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
+    private ProcessedTestClasses processedTestClasses;
+    private int sentTestClasses;
 
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, false);
+    }
+
+    /**
+     * @param waitForProcessedTestClasses Whether {@link #processTestClass(TestClassRunInfo)} should block until the worker has finished processing the test class.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, boolean waitForProcessedTestClasses) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -60,6 +72,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.waitForProcessedTestClasses = waitForProcessedTestClasses;
     }
 
     @Override
@@ -76,6 +89,10 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         }
 
         remoteProcessor.processTestClass(testClass);
+        sentTestClasses++;
+        if (waitForProcessedTestClasses) {
+            processedTestClasses.waitFor(sentTestClasses);
+        }
     }
 
     RemoteTestClassProcessor forkProcess() {
@@ -93,6 +110,8 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        processedTestClasses = new ProcessedTestClasses();
+        connection.addIncoming(TestClassProcessedListener.class, processedTestClasses);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -136,4 +155,32 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             }
         }
     }
+
+    private static class ProcessedTestClasses implements TestClassProcessedListener, StreamCompletion {
+        private int processed;
+        private boolean ended;
+
+        @Override
+        public synchronized void testClassProcessed() {
+            processed++;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void endStream() {
+            // The worker has stopped or crashed, so do not wait for it anymore
+            ended = true;
+            notifyAll();
+        }
+
+        synchronized void waitFor(int count) {
+            try {
+                while (processed < count && !ended) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
 }
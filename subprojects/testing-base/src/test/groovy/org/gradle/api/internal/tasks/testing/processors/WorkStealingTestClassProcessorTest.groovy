@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.internal.Factory
+import org.gradle.internal.actor.Actor
+import org.gradle.internal.actor.ActorFactory
+import spock.lang.Specification
+
+class WorkStealingTestClassProcessorTest extends Specification {
+    private final Factory<TestClassProcessor> factory = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final TestResultProcessor asyncResultProcessor = Mock()
+    private final Actor resultProcessorActor = Mock()
+    private final ActorFactory actorFactory = Mock()
+    private final TestClassProcessor processor1 = Mock()
+    private final TestClassProcessor asyncProcessor1 = Mock()
+    private final Actor actor1 = Mock()
+    private final List<TestClassProcessor> workers = []
+
+    def "hands a test class to a processor only once it has finished with the previous one"() {
+        def processor = new WorkStealingTestClassProcessor(1, factory, actorFactory, [:])
+        startProcessor(processor)
+
+        when:
+        processor.processTestClass(test("A"))
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_) >> { workers << it[0]; actor1 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "A" })
+        0 * _
+
+        when:
+        processor.processTestClass(test("B"))
+
+        then:
+        0 * _
+
+        when:
+        workers[0].processTestClass(test("A"))
+
+        then:
+        1 * processor1.processTestClass({ it.testClassName == "A" })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "B" })
+        0 * _
+    }
+
+    def "hands out queued test classes longest first"() {
+        given:
+        def processor = new WorkStealingTestClassProcessor(1, factory, actorFactory, [Fast: 10L, Slow: 1000L, Medium: 100L])
+        startProcessor(processor)
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_) >> { workers << it[0]; actor1 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        processor.processTestClass(test("First"))
+        processor.processTestClass(test("Fast"))
+        processor.processTestClass(test("Slow"))
+        processor.processTestClass(test("New"))
+        processor.processTestClass(test("Medium"))
+
+        when:
+        4.times { workers[0].processTestClass(test("ignored")) }
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "New" })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "Slow" })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "Medium" })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "Fast" })
+    }
+
+    def "starts processors on demand and only while all of them are busy"() {
+        def processor = new WorkStealingTestClassProcessor(2, factory, actorFactory, [:])
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor2 = Mock()
+        startProcessor(processor)
+
+        when:
+        processor.processTestClass(test("A"))
+        processor.processTestClass(test("B"))
+        processor.processTestClass(test("C"))
+
+        then:
+        2 * factory.create() >>> [processor1, processor2]
+        2 * actorFactory.createActor(_) >> { workers << it[0]; workers.size() == 1 ? actor1 : actor2 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "A" })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == "B" })
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        workers[0].processTestClass(test("A"))
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "C" })
+        0 * factory._
+    }
+
+    def "hands out the queued test classes before stopping the processors"() {
+        given:
+        def processor = new WorkStealingTestClassProcessor(1, factory, actorFactory, [:])
+        startProcessor(processor)
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_) >> { workers << it[0]; actor1 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        processor.processTestClass(test("A"))
+        processor.processTestClass(test("B"))
+
+        when:
+        def stopper = new Thread({ processor.stop() })
+        stopper.start()
+        workers[0].processTestClass(test("A"))
+        stopper.join()
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "B" })
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * actor1.stop()
+        1 * resultProcessorActor.stop()
+    }
+
+    private void startProcessor(WorkStealingTestClassProcessor processor) {
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+    }
+
+    private static TestClassRunInfo test(String name) {
+        return new DefaultTestClassRunInfo(name)
+    }
+}
@@ -22,6 +22,8 @@ import org.gradle.process.JavaForkOptions;
 import org.gradle.util.Path;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 
 public class JvmTestExecutionSpec implements TestExecutionSpec {
     private final TestFramework testFramework;
@@ -34,8 +36,13 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     private final long forkEvery;
     private final JavaForkOptions javaForkOptions;
     private final int maxParallelForks;
+    private final Map<String, Long> previousTestClassDurations;
 
     public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks) {
+        this(testFramework, classpath, candidateClassFiles, scanForTestClasses, testClassesDirs, path, identityPath, forkEvery, javaForkOptions, maxParallelForks, Collections.<String, Long>emptyMap());
+    }
+
+    public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Map<String, Long> previousTestClassDurations) {
         this.testFramework = testFramework;
         this.classpath = classpath;
         this.candidateClassFiles = candidateClassFiles;
@@ -46,6 +53,7 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
         this.forkEvery = forkEvery;
         this.javaForkOptions = javaForkOptions;
         this.maxParallelForks = maxParallelForks;
+        this.previousTestClassDurations = previousTestClassDurations;
     }
 
     public TestFramework getTestFramework() {
@@ -87,4 +95,11 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     public int getMaxParallelForks() {
         return maxParallelForks;
     }
+
+    /**
+     * The duration of each test class in the previous run of the task, in milliseconds, by test class name.
+     */
+    public Map<String, Long> getPreviousTestClassDurations() {
+        return previousTestClassDurations;
+    }
 }
@@ -35,6 +35,8 @@ import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.CacheableTask;
@@ -67,6 +69,8 @@ import org.gradle.util.SingleMessageLogger;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -132,6 +136,7 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     private long forkEvery;
     private int maxParallelForks = 1;
     private TestExecuter<JvmTestExecutionSpec> testExecuter;
+    private Map<String, Long> previousTestClassDurations = Collections.emptyMap();
 
     public Test() {
         patternSet = getFileResolver().getPatternSetFactory().create();
@@ -507,7 +512,7 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
      */
     @Override
     protected JvmTestExecutionSpec createTestExecutionSpec() {
-        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), this, getMaxParallelForks());
+        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), this, getMaxParallelForks(), previousTestClassDurations);
     }
 
     @TaskAction
@@ -517,11 +522,37 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
             throw new UnsupportedJavaRuntimeException("Support for test execution using Java 5 or earlier was removed in Gradle 3.0.");
         }
 
+        if (DefaultTestExecuter.isWorkStealing()) {
+            // Read before the binary results of the previous run are deleted
+            previousTestClassDurations = readPreviousTestClassDurations();
+        }
+
         try {
             super.executeTests();
         } finally {
             testFramework = null;
+            previousTestClassDurations = Collections.emptyMap();
+        }
+    }
+
+    private Map<String, Long> readPreviousTestClassDurations() {
+        TestResultSerializer serializer = new TestResultSerializer(getBinResultsDir());
+        if (!serializer.isHasResults()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Long> durations = new HashMap<String, Long>();
+        try {
+            serializer.read(new Action<TestClassResult>() {
+                @Override
+                public void execute(TestClassResult result) {
+                    durations.put(result.getClassName(), result.getDuration());
+                }
+            });
+        } catch (Exception e) {
+            getLogger().info("Could not read the durations of the previous test run of {}.", getPath(), e);
+            return Collections.emptyMap();
         }
+        return durations;
     }
 
     @Override